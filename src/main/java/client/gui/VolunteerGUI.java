@@ -1,9 +1,12 @@
 package client.gui;
 
 import client.network.ClientNetworkManager;
+import client.network.PreferenceSubmissionQueue;
 import client.preferences.PreferencesManager;
 import model.Assignment;
+import model.AssignmentUpdate;
 import model.Preference;
+import model.Service;
 import model.Volunteer;
 
 import javax.swing.*;
@@ -16,11 +19,8 @@ import java.util.stream.Collectors;
 
 public class VolunteerGUI {
 
-    // List of available services volunteers can choose from
-    private static final String[] SERVICES = {
-            "Reception", "Logistics", "Food Service", "Security", "Media",
-            "Transport", "Medical", "Info Desk", "Cleanup", "Tech Support"
-    };
+    // Services volunteers can choose from, as fetched from the server's catalog
+    private volatile List<String> services = List.of();
 
     // Each volunteer is assigned a random ID between 1000 and 9999
     private final int volunteerId = new Random().nextInt(9000) + 1000;
@@ -39,7 +39,30 @@ public class VolunteerGUI {
     // Constructor initializes UI and sets up network listener
     public VolunteerGUI() {
         SwingUtilities.invokeLater(this::initUI);
-        networkManager.onAssignmentReceived(this::renderAssignments);
+        networkManager.onPersonalUpdate(this::renderUpdate);
+        networkManager.onConnectionChange(connected -> {
+            SwingUtilities.invokeLater(() ->
+                    status.setText(connected ? "Connected to server" : "Connection lost, reconnecting..."));
+            if (connected) loadServices(); // The catalog may have changed while disconnected
+        });
+        networkManager.onCatalogChange(version -> loadServices());
+        networkManager.onSubmissionStateChange((state, unsent) ->
+                SwingUtilities.invokeLater(() -> status.setText(describe(state, unsent))));
+        networkManager.subscribe(volunteerId, true); // Own assignment plus service summary only
+        loadServices();
+    }
+
+    // Fetches the service catalog and fills the dropdowns once it arrives
+    private void loadServices() {
+        networkManager.fetchServices().whenComplete((catalog, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                status.setText("Could not load services from server");
+                return;
+            }
+            services = catalog.stream().map(Service::getName).collect(Collectors.toList());
+            enforceUniqueChoices(-1); // Rebuilds every dropdown from the new list
+            status.setText("Loaded " + services.size() + " services");
+        }));
     }
 
     // Initializes the main UI frame
@@ -76,7 +99,7 @@ public class VolunteerGUI {
 
         // Create 5 dropdowns for service preferences
         for (int i = 0; i < 5; i++) {
-            selectors.add(new JComboBox<>(SERVICES));
+            selectors.add(new JComboBox<>(services.toArray(new String[0])));
             selectors.get(i).setSelectedIndex(-1); // No initial selection
             final int index = i;
             selectors.get(i).addActionListener(e -> enforceUniqueChoices(index)); // Ensure uniqueness
@@ -132,19 +155,20 @@ public class VolunteerGUI {
     private void enforceUniqueChoices(int changedIndex) {
         Set<String> chosen = selectors.stream()
                 .map(cb -> (String) cb.getSelectedItem())
-                .filter(Objects::nonNull)
+                .filter(services::contains) // Choices of services removed from the catalog are dropped
                 .collect(Collectors.toSet());
 
         for (JComboBox<String> cb : selectors) {
             String current = (String) cb.getSelectedItem();
+            if (!chosen.contains(current)) current = null;
             DefaultComboBoxModel<String> model = new DefaultComboBoxModel<>();
-            for (String s : SERVICES) {
+            for (String s : services) {
                 if (!chosen.contains(s) || s.equals(current)) {
                     model.addElement(s);
                 }
             }
             cb.setModel(model);
-            cb.setSelectedItem(current); // Keep current selection
+            cb.setSelectedItem(current); // Keep current selection; null clears the model's automatic first pick
         }
     }
 
@@ -166,50 +190,50 @@ public class VolunteerGUI {
 
         preferencesManager.setPreferences(prefs);
         Volunteer v = new Volunteer(volunteerId, "Volunteer #" + volunteerId, prefs);
-        networkManager.postPreferences(v);
-        status.setText("Preferences sent at " + LocalTime.now().withNano(0));
+        networkManager.postPreferences(v); // Queued; progress is reported through describe()
+    }
+
+    // Status line for the delivery state of submitted preferences
+    private static String describe(PreferenceSubmissionQueue.State state, int unsent) {
+        switch (state) {
+            case QUEUED:    return "Preferences queued";
+            case SENDING:   return "Sending preferences...";
+            case DELIVERED: return "Preferences saved at " + LocalTime.now().withNano(0);
+            case RETRYING:  return "Server unreachable, will retry (" + unsent + " unsent)";
+            default:        return "Preferences rejected by server";
+        }
     }
 
-    // Displays the assignments and service summary
-    private void renderAssignments(java.util.List<Assignment> assignments) {
+    // Displays this volunteer's assignment and the service summary
+    private void renderUpdate(AssignmentUpdate update) {
         SwingUtilities.invokeLater(() -> {
             StringBuilder html = new StringBuilder("<html><body style='font-family:monospace'>");
             html.append("<b>Updated at ").append(LocalTime.now().withNano(0)).append("</b><br><br>");
 
             // Highlight current volunteer's assignment
-            assignments.stream()
-                    .filter(a -> a.getVolunteerId() == volunteerId)
-                    .findFirst()
-                    .ifPresent(a -> html.append("<b style='color:green'>*** YOUR ASSIGNMENT: ")
-                            .append(a.getServiceName())
-                            .append(" (cost ").append((int) a.getCost()).append(") ***</b><br><br>"));
-
-            double totalCost = 0;
-            for (Assignment a : assignments) {
-                totalCost += a.getCost();
-                String color = a.getCost() >= 10 ? "red" : "black";
-                html.append(String.format("<span style='color:%s'>ID %4d → %-12s cost %2.0f</span><br>",
-                        color, a.getVolunteerId(), a.getServiceName(), a.getCost()));
+            if (update.getAssignments().isEmpty()) {
+                html.append("<span style='color:gray'>No assignment yet.</span>");
+            } else {
+                Assignment a = update.getAssignments().get(0);
+                String color = a.getCost() >= 10 ? "red" : "green";
+                html.append(String.format("<b style='color:%s'>*** YOUR ASSIGNMENT: %s (cost %d) ***</b>",
+                        color, a.getServiceName() == null ? "none" : a.getServiceName(), (int) a.getCost()));
             }
             html.append("</body></html>");
-
             outputPane.setText(html.toString());
-            totalCostLabel.setText("Total Cost: " + (int) totalCost);
             status.setText("Last update " + LocalTime.now().withNano(0));
 
-            // Count how many volunteers are assigned to each service
-            Map<String, Integer> serviceCounts = new HashMap<>();
-            for (Assignment a : assignments) {
-                String service = a.getServiceName();
-                serviceCounts.put(service, serviceCounts.getOrDefault(service, 0) + 1);
+            if (update.getTotalCost() != null) {
+                totalCostLabel.setText("Total Cost: " + update.getTotalCost().intValue());
             }
-
-            StringBuilder summary = new StringBuilder("Service Assignment Summary:\n");
-            for (String s : SERVICES) {
-                int assigned = serviceCounts.getOrDefault(s, 0);
-                summary.append(String.format("• %-12s: %d\n", s, assigned));
+            if (update.getServiceCounts() != null) {
+                StringBuilder summary = new StringBuilder("Service Assignment Summary:\n");
+                for (String s : services) {
+                    int assigned = update.getServiceCounts().getOrDefault(s, 0);
+                    summary.append(String.format("• %-12s: %d\n", s, assigned));
+                }
+                serviceSummaryArea.setText(summary.toString());
             }
-            serviceSummaryArea.setText(summary.toString());
         });
     }
 
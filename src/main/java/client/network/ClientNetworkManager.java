@@ -1,18 +1,36 @@
 package client.network;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonObject;
 import model.Assignment;
+import model.AssignmentUpdate;
+import model.AssignmentUpdateCodec;
+import model.Service;
 import model.Volunteer;
 
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.extensions.permessage_deflate.PerMessageDeflateExtension;
 import org.java_websocket.handshake.ServerHandshake;
 
 import java.net.URISyntaxException;
@@ -30,28 +48,37 @@ public class ClientNetworkManager {
     // Gson instance for converting Java objects to/from JSON
     private final Gson gson = new Gson();
 
+    // Reconnect delays grow exponentially up to the cap; each wait is drawn at random below the current
+    // bound so that clients dropped together by a server restart do not all reconnect at the same moment
+    private static final long RECONNECT_BASE_MS = 500;
+    private static final long RECONNECT_MAX_MS = 30_000;
+    private static final int HEARTBEAT_SECONDS = 15; // Ping interval; a connection without pongs is closed and retried
+
+    private final ScheduledExecutorService reconnector = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "websocket-reconnect");
+        t.setDaemon(true);
+        return t;
+    });
+    private int reconnectAttempts; // Failed attempts since the last successful connection, guarded by this
+
+    // Outbox for preference submissions, saved to the file named by the volunteer.outboxFile system property
+    private final PreferenceSubmissionQueue submissions = new PreferenceSubmissionQueue(http, serverUrl,
+            Paths.get(System.getProperty("volunteer.outboxFile", "volunteer-outbox.json")));
+
     // Constructor initializes WebSocket connection
     public ClientNetworkManager() {
         connectToWebSocket();
     }
 
-    // Sends the volunteer's preferences to the backend server using HTTP POST
+    // Queues the volunteer's preferences for the backend server; edits made before they are sent replace them,
+    // and failed requests are retried (see PreferenceSubmissionQueue)
     public void postPreferences(Volunteer volunteer) {
-        try {
-            String json = gson.toJson(volunteer); // Convert Volunteer object to JSON
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(serverUrl + "/preferences")) // Endpoint for submitting preferences
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(json)) // Send JSON in request body
-                    .build();
+        submissions.submit(volunteer);
+    }
 
-            // Asynchronously send the request and print the response
-            http.sendAsync(request, HttpResponse.BodyHandlers.ofString())
-                    .thenAccept(res -> System.out.println("Submitted preferences: " + res.body()));
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    // Register a listener for the delivery state of submitted preferences and the number still unsent
+    public void onSubmissionStateChange(BiConsumer<PreferenceSubmissionQueue.State, Integer> callback) {
+        submissions.onStateChange(callback);
     }
 
     // Sends a POST request to trigger the optimization algorithm on the server
@@ -70,50 +97,208 @@ public class ClientNetworkManager {
         }
     }
 
+    // Fetches the service catalog (names and capacities, in catalog order) from the server
+    public CompletableFuture<List<Service>> fetchServices() {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(serverUrl + "/services")) // Endpoint listing the service catalog
+                .GET()
+                .build();
+
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(res -> {
+                    JsonObject catalog = gson.fromJson(res.body(), JsonObject.class);
+                    return Arrays.asList(gson.fromJson(catalog.get("services"), Service[].class));
+                });
+    }
+
     // A callback that gets called whenever a new list of assignments is received via WebSocket
     private Consumer<List<Assignment>> assignmentCallback;
 
+    // Local copy of the roster, kept up to date by applying full and delta updates
+    private final Map<Integer, Assignment> roster = new LinkedHashMap<>();
+    private long rosterVersion; // Version of `roster`, 0 until the first full update
+
     // Register a listener for assignment updates
     public void onAssignmentReceived(Consumer<List<Assignment>> callback) {
         this.assignmentCallback = callback;
     }
 
-    // Establishes a WebSocket connection to receive real-time assignment updates
+    // A callback for personal updates, received instead of the roster once subscribed
+    private Consumer<AssignmentUpdate> personalCallback;
+
+    // Register a listener for personal updates
+    public void onPersonalUpdate(Consumer<AssignmentUpdate> callback) {
+        this.personalCallback = callback;
+    }
+
+    // A callback told the new catalog version whenever the server's service catalog changes
+    private Consumer<Long> catalogCallback;
+
+    // Register a listener for catalog changes; fetchServices() returns the new catalog
+    public void onCatalogChange(Consumer<Long> callback) {
+        this.catalogCallback = callback;
+    }
+
+    // A callback told whenever the WebSocket connection is established (true) or lost (false)
+    private Consumer<Boolean> connectionCallback;
+
+    // Register a listener for connection state changes
+    public void onConnectionChange(Consumer<Boolean> callback) {
+        this.connectionCallback = callback;
+    }
+
+    // The active WebSocket connection and the subscription to restore whenever it (re)opens
+    private volatile WebSocketClient socket;
+    private volatile String subscription;       // Subscribe message, null for the whole roster
+    private volatile String subscriptionHeader; // The same subscription as X-Subscribe header value
+
+    // Asks the server for this volunteer's assignment only, plus the service summary if requested
+    public void subscribe(int volunteerId, boolean summary) {
+        subscriptionHeader = volunteerId + (summary ? ";summary" : "");
+        subscription = "{\"type\":\"subscribe\",\"volunteerId\":" + volunteerId + ",\"summary\":" + summary + "}";
+        WebSocketClient current = socket;
+        if (current != null && current.isOpen()) {
+            current.send(subscription);
+        }
+    }
+
+    // Establishes a WebSocket connection to receive real-time assignment updates, asking for the binary
+    // update format and permessage-deflate compression. The handshake also carries the subscription and the
+    // last roster version held, so after a reconnect the server sends only what changed since then.
     private void connectToWebSocket() {
+        Map<String, String> headers = new HashMap<>();
+        headers.put(AssignmentUpdateCodec.FORMAT_HEADER, AssignmentUpdateCodec.BINARY);
+        String handshakeSubscription = subscription;
+        if (handshakeSubscription != null) {
+            headers.put(AssignmentUpdate.SUBSCRIBE_HEADER, subscriptionHeader);
+        } else if (getRosterVersion() > 0) {
+            headers.put(AssignmentUpdate.RESUME_HEADER, Long.toString(getRosterVersion()));
+        }
+
         try {
-            WebSocketClient client = new WebSocketClient(new URI(wsUrl)) {
+            WebSocketClient client = new WebSocketClient(new URI(wsUrl), new Draft_6455(new PerMessageDeflateExtension()), headers) {
 
                 // Called when WebSocket connection is established
                 @Override
                 public void onOpen(ServerHandshake handshake) {
                     System.out.println("Connected to WebSocket server.");
+                    synchronized (ClientNetworkManager.this) {
+                        reconnectAttempts = 0;
+                    }
+                    String current = subscription;
+                    if (current != null && !current.equals(handshakeSubscription)) {
+                        send(current); // Subscribed while the handshake was under way
+                    }
+                    if (connectionCallback != null) {
+                        connectionCallback.accept(true);
+                    }
                 }
 
-                // Called when a message (JSON-encoded list of assignments) is received
+                // Called when a JSON-encoded AssignmentUpdate is received (servers without the binary format)
                 @Override
                 public void onMessage(String message) {
-                    Assignment[] assignments = gson.fromJson(message, Assignment[].class); // Deserialize JSON
-                    if (assignmentCallback != null) {
-                        assignmentCallback.accept(Arrays.asList(assignments)); // Notify listener
+                    handleUpdate(gson.fromJson(message, AssignmentUpdate.class)); // Deserialize JSON
+                }
+
+                // Called when a binary AssignmentUpdate is received
+                @Override
+                public void onMessage(ByteBuffer bytes) {
+                    try {
+                        handleUpdate(AssignmentUpdateCodec.decode(bytes));
+                    } catch (IllegalArgumentException e) {
+                        System.out.println("Ignoring undecodable update: " + e.getMessage());
+                        send("{\"type\":\"resync\"}");
                     }
                 }
 
-                // Called when the WebSocket connection is closed
+                private void handleUpdate(AssignmentUpdate update) {
+                    if (AssignmentUpdate.CATALOG.equals(update.getType())) {
+                        if (catalogCallback != null) {
+                            catalogCallback.accept(update.getVersion());
+                        }
+                        return;
+                    }
+                    if (AssignmentUpdate.PERSONAL.equals(update.getType())) {
+                        if (personalCallback != null) {
+                            personalCallback.accept(update);
+                        }
+                        return;
+                    }
+                    List<Assignment> assignments = applyUpdate(update);
+                    if (assignments == null) {
+                        send("{\"type\":\"resync\"}"); // Missed an update: ask for a full one
+                    } else if (assignmentCallback != null) {
+                        assignmentCallback.accept(assignments); // Notify listener with the whole roster
+                    }
+                }
+
+                // Called when the WebSocket connection is closed or could not be opened
                 @Override
                 public void onClose(int code, String reason, boolean remote) {
-                    System.out.println("WebSocket closed: " + reason);
+                    System.out.println("WebSocket closed: " + (reason == null || reason.isEmpty() ? "code " + code : reason));
+                    if (connectionCallback != null) {
+                        connectionCallback.accept(false);
+                    }
+                    scheduleReconnect();
                 }
 
                 // Called if an error occurs on the WebSocket
                 @Override
                 public void onError(Exception ex) {
-                    ex.printStackTrace();
+                    if (isOpen()) {
+                        ex.printStackTrace();
+                    } else {
+                        System.out.println("WebSocket connection failed: " + ex); // Retried by onClose
+                    }
                 }
             };
-
+            client.setConnectionLostTimeout(HEARTBEAT_SECONDS);
+            socket = client;
             client.connect(); // Initiates connection
         } catch (URISyntaxException e) {
             e.printStackTrace();
         }
     }
+
+    // Opens a new connection after a random delay below an exponentially growing bound ("full jitter")
+    private void scheduleReconnect() {
+        long bound;
+        synchronized (this) {
+            bound = Math.min(RECONNECT_MAX_MS, RECONNECT_BASE_MS << Math.min(reconnectAttempts, 16));
+            reconnectAttempts++;
+        }
+        long delay = ThreadLocalRandom.current().nextLong(bound + 1);
+        System.out.println("Reconnecting in " + delay + " ms");
+        reconnector.schedule(this::connectToWebSocket, delay, TimeUnit.MILLISECONDS);
+    }
+
+    // Version of the local roster, 0 until the first full update
+    private synchronized long getRosterVersion() {
+        return rosterVersion;
+    }
+
+    // Applies an update to the local roster; returns the full roster, or null if a delta does not fit
+    private synchronized List<Assignment> applyUpdate(AssignmentUpdate update) {
+        if (AssignmentUpdate.FULL.equals(update.getType())) {
+            roster.clear();
+            for (Assignment a : update.getAssignments()) {
+                roster.put(a.getVolunteerId(), a);
+            }
+        } else {
+            if (update.getVersion() <= rosterVersion) {
+                return new ArrayList<>(roster.values()); // Already contained in a newer full update
+            }
+            if (update.getBaseVersion() == null || update.getBaseVersion() != rosterVersion) {
+                return null;
+            }
+            for (Integer id : update.getRemoved()) {
+                roster.remove(id);
+            }
+            for (Assignment a : update.getAssignments()) {
+                roster.put(a.getVolunteerId(), a);
+            }
+        }
+        rosterVersion = update.getVersion();
+        return new ArrayList<>(roster.values());
+    }
 }
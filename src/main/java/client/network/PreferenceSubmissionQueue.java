@@ -0,0 +1,262 @@
+package client.network;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import model.Volunteer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Outbox for preference submissions.
+ * <p>
+ * Submissions are held per volunteer, so an edit replaces any earlier unsent one. After a short pause
+ * the outbox is sent in one request: {@code POST /preferences} for one volunteer, {@code POST /preferences/bulk}
+ * for several. Failed requests are retried with a growing, randomized delay. The outbox is saved to a local
+ * file on every change and reloaded on start, so unsent submissions survive a restart.
+ * <p>
+ * All state is confined to one worker thread; {@link #submit(Volunteer)} only hands work to it.
+ */
+public class PreferenceSubmissionQueue {
+
+    /**
+     * Delivery state reported to the listener.
+     */
+    public enum State { QUEUED, SENDING, DELIVERED, RETRYING, REJECTED }
+
+    private static final long COALESCE_MS = 300;      // Pause after an edit before sending, to fold rapid edits together
+    private static final long RETRY_BASE_MS = 1000;   // First retry bound; doubles per failure
+    private static final long RETRY_MAX_MS = 60_000;  // Largest retry bound
+    private static final int MAX_BATCH = 1000;        // Volunteers per bulk request
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private final HttpClient http;
+    private final String serverUrl;
+    private final Path file;                          // Saved outbox, null if it cannot be used
+    private final Gson gson = new Gson();
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "preference-sender");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Map<Integer, Volunteer> outbox = new LinkedHashMap<>(); // Unsent submissions by volunteer ID
+    private ScheduledFuture<?> nextSend;              // Pending send, null if none is scheduled
+    private boolean sending;                          // A request is in flight
+    private int failures;                             // Consecutive failed requests
+    private State state;                              // Last reported state, null before the first
+    private volatile BiConsumer<State, Integer> listener; // Told the state and the number of unsent volunteers
+
+    /**
+     * @param file where unsent submissions are kept; another running client holding it leaves this one in memory only
+     */
+    PreferenceSubmissionQueue(HttpClient http, String serverUrl, Path file) {
+        this.http = http;
+        this.serverUrl = serverUrl;
+        this.file = lock(file);
+        worker.execute(this::load);
+    }
+
+    /**
+     * Register a listener for delivery state changes, called on the queue's thread.
+     * It is first told the current state, if any, e.g. submissions reloaded from an earlier run.
+     */
+    public void onStateChange(BiConsumer<State, Integer> listener) {
+        this.listener = listener;
+        worker.execute(() -> {
+            if (state != null) {
+                listener.accept(state, outbox.size());
+            }
+        });
+    }
+
+    /**
+     * Queues a volunteer's preferences, replacing an unsent earlier submission for the same volunteer.
+     */
+    public void submit(Volunteer volunteer) {
+        worker.execute(() -> {
+            outbox.remove(volunteer.getId()); // Re-insert so the latest edit goes last
+            outbox.put(volunteer.getId(), volunteer);
+            save();
+            report(State.QUEUED);
+            if (!sending && nextSend == null) {
+                schedule(COALESCE_MS); // While retrying, the scheduled retry picks it up
+            }
+        });
+    }
+
+    private void schedule(long delayMillis) {
+        nextSend = worker.schedule(this::send, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void send() {
+        nextSend = null;
+        if (sending || outbox.isEmpty()) return;
+
+        List<Volunteer> batch = new ArrayList<>(Math.min(outbox.size(), MAX_BATCH));
+        for (Volunteer v : outbox.values()) {
+            if (batch.size() == MAX_BATCH) break;
+            batch.add(v);
+        }
+        boolean bulk = batch.size() > 1;
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(serverUrl + (bulk ? "/preferences/bulk" : "/preferences")))
+                .header("Content-Type", "application/json")
+                .timeout(REQUEST_TIMEOUT)
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(bulk ? batch : batch.get(0))))
+                .build();
+
+        sending = true;
+        report(State.SENDING);
+        http.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((res, error) -> worker.execute(() -> completed(batch, res, error)));
+    }
+
+    private void completed(List<Volunteer> batch, HttpResponse<String> res, Throwable error) {
+        sending = false;
+        if (error != null || res.statusCode() >= 500 || res.statusCode() == 429) {
+            failures++;
+            long bound = Math.min(RETRY_MAX_MS, RETRY_BASE_MS << Math.min(failures - 1, 16));
+            long delay = ThreadLocalRandom.current().nextLong(bound / 2, bound + 1); // Spread out clients failing together
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            System.out.println("Submitting preferences failed (" + (cause != null ? cause : "HTTP " + res.statusCode())
+                    + "), retrying in " + delay + " ms");
+            report(State.RETRYING);
+            schedule(delay);
+            return;
+        }
+
+        failures = 0;
+        boolean rejected = res.statusCode() >= 400 || rejectedRecords(res) > 0; // Resending would fail again
+        if (rejected) {
+            System.out.println("Server rejected preferences: " + res.body());
+        } else {
+            System.out.println("Submitted preferences for " + batch.size() + " volunteer(s)");
+        }
+        for (Volunteer v : batch) {
+            outbox.remove(v.getId(), v); // Keeps edits made while the request was in flight
+        }
+        save();
+        report(rejected ? State.REJECTED : outbox.isEmpty() ? State.DELIVERED : State.QUEUED);
+        if (!outbox.isEmpty()) {
+            schedule(0);
+        }
+    }
+
+    /**
+     * Number of records a bulk response reports as rejected, 0 for other responses.
+     */
+    private int rejectedRecords(HttpResponse<String> res) {
+        if (!res.uri().getPath().endsWith("/bulk")) return 0;
+        try {
+            JsonObject result = gson.fromJson(res.body(), JsonObject.class);
+            return result != null && result.has("rejected") ? result.get("rejected").getAsInt() : 0;
+        } catch (JsonParseException | IllegalStateException e) {
+            return 0;
+        }
+    }
+
+    private void report(State state) {
+        this.state = state;
+        BiConsumer<State, Integer> current = listener;
+        if (current != null) {
+            current.accept(state, outbox.size());
+        }
+    }
+
+    /**
+     * Reloads submissions left unsent by an earlier run and sends them.
+     */
+    private void load() {
+        if (file == null || !Files.exists(file)) return;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Volunteer[] saved = gson.fromJson(reader, Volunteer[].class);
+            if (saved != null) {
+                for (Volunteer v : saved) {
+                    outbox.put(v.getId(), v);
+                }
+            }
+        } catch (IOException | JsonParseException e) {
+            System.out.println("Could not read unsent preferences from " + file + ": " + e.getMessage());
+            return;
+        }
+        if (!outbox.isEmpty()) {
+            System.out.println("Resending " + outbox.size() + " unsent preference submission(s)");
+            report(State.QUEUED);
+            schedule(0);
+        }
+    }
+
+    /**
+     * Writes the outbox, replacing the previous file (temp file + atomic rename); removes it once empty.
+     */
+    private void save() {
+        if (file == null) return;
+        try {
+            if (outbox.isEmpty()) {
+                Files.deleteIfExists(file);
+                return;
+            }
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                gson.toJson(outbox.values(), writer);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Could not save unsent preferences to " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Takes an exclusive lock next to {@code file} for the life of the process, so two clients
+     * started in the same directory do not overwrite each other's outbox.
+     *
+     * @return {@code file}, or null if the lock is held elsewhere or cannot be taken
+     */
+    private static Path lock(Path file) {
+        Path absolute = file.toAbsolutePath();
+        FileChannel channel = null;
+        try {
+            Files.createDirectories(absolute.getParent());
+            channel = FileChannel.open(absolute.resolveSibling(absolute.getFileName() + ".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (channel.tryLock() != null) {
+                return absolute; // Channel stays open, and the lock held, until the process exits
+            }
+        } catch (IOException | OverlappingFileLockException e) {
+            // Fall through to memory only
+        }
+        try {
+            if (channel != null) channel.close();
+        } catch (IOException ignored) {
+            // Nothing was locked
+        }
+        System.out.println("Outbox " + file + " is in use; unsent preferences will not be kept across restarts");
+        return null;
+    }
+}
@@ -0,0 +1,125 @@
+package model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Message sent to WebSocket clients when assignments change.
+ * A "full" update carries every assignment; a "delta" update carries only the assignments that changed
+ * since {@code baseVersion} plus the IDs of volunteers that no longer have one. A "personal" update goes
+ * to clients subscribed to one volunteer and carries only that volunteer's assignment, plus per-service
+ * counts and the total cost if the client asked for the summary.
+ */
+public class AssignmentUpdate {
+    public static final String FULL = "full";
+    public static final String DELTA = "delta";
+    public static final String PERSONAL = "personal";
+    public static final String CATALOG = "catalog"; // Not an assignment: the service catalog changed to version
+
+    public static final String RESUME_HEADER = "X-Resume-Version"; // Handshake header: last roster version the client holds
+    public static final String SUBSCRIBE_HEADER = "X-Subscribe";   // Handshake header: "volunteerId" or "volunteerId;summary"
+
+    private String type;                  // FULL, DELTA, PERSONAL or CATALOG
+    private long version;                 // Roster version after applying this update
+    private Long baseVersion;             // DELTA only: version the changes apply to
+    private List<Assignment> assignments; // FULL: all assignments, DELTA: changed or added ones
+    private List<Integer> removed;        // DELTA only: volunteer IDs to drop
+    private Map<String, Integer> serviceCounts; // PERSONAL with summary: volunteers per service
+    private Double totalCost;             // PERSONAL with summary: sum of all assignment costs
+
+    /**
+     * Constructs an update.
+     *
+     * @param type        FULL or DELTA
+     * @param version     roster version after this update
+     * @param baseVersion version a delta applies to, null for a full update
+     * @param assignments all (full) or changed (delta) assignments
+     * @param removed     volunteer IDs removed by a delta, null for a full update
+     */
+    public AssignmentUpdate(String type, long version, Long baseVersion, List<Assignment> assignments, List<Integer> removed) {
+        this.type = type;
+        this.version = version;
+        this.baseVersion = baseVersion;
+        this.assignments = assignments;
+        this.removed = removed;
+    }
+
+    /**
+     * Constructs a personal update.
+     *
+     * @param version       roster version
+     * @param assignments   the subscribed volunteer's assignment, or empty if they have none
+     * @param serviceCounts volunteers per service, or null without summary
+     * @param totalCost     total cost of the roster, or null without summary
+     */
+    public AssignmentUpdate(long version, List<Assignment> assignments, Map<String, Integer> serviceCounts, Double totalCost) {
+        this.type = PERSONAL;
+        this.version = version;
+        this.assignments = assignments;
+        this.serviceCounts = serviceCounts;
+        this.totalCost = totalCost;
+    }
+
+    /**
+     * Gets the update type.
+     *
+     * @return FULL, DELTA or PERSONAL
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Gets the roster version this update leads to.
+     *
+     * @return version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the version a delta applies to.
+     *
+     * @return base version, or null for a full update
+     */
+    public Long getBaseVersion() {
+        return baseVersion;
+    }
+
+    /**
+     * Gets the assignments carried by this update.
+     *
+     * @return all assignments (full), changed ones (delta) or the volunteer's own (personal)
+     */
+    public List<Assignment> getAssignments() {
+        return assignments;
+    }
+
+    /**
+     * Gets the volunteer IDs removed by a delta.
+     *
+     * @return removed IDs, or null
+     */
+    public List<Integer> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Gets the number of volunteers per service.
+     *
+     * @return service counts, or null
+     */
+    public Map<String, Integer> getServiceCounts() {
+        return serviceCounts;
+    }
+
+    /**
+     * Gets the total cost of the roster.
+     *
+     * @return total cost, or null
+     */
+    public Double getTotalCost() {
+        return totalCost;
+    }
+}
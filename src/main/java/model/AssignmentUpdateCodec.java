@@ -0,0 +1,186 @@
+package model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Compact binary encoding of {@link AssignmentUpdate}, used instead of JSON for WebSocket clients that
+ * send the handshake header {@code X-Assignment-Format: binary}.
+ * <p>
+ * Service names are written once in a dictionary and assignments refer to them by index; costs are written
+ * as ints when all of them are whole numbers, which is the usual case:
+ * <pre>
+ * byte   format version
+ * byte   type               0 full, 1 delta, 2 personal
+ * byte   flags              see FLAG_*
+ * long   version
+ * long   base version       delta only
+ * short  service count, then per service: int UTF-8 length + bytes
+ * int    assignment count, then per assignment: int volunteer ID, short service index (-1 for none), int or double cost
+ * int    removed count, then the removed volunteer IDs          delta only
+ * short  counted services, then per service: short index + int count   personal with summary only
+ * double total cost                                               personal with summary only
+ * </pre>
+ */
+public final class AssignmentUpdateCodec {
+    public static final String FORMAT_HEADER = "X-Assignment-Format"; // Handshake header selecting the format
+    public static final String BINARY = "binary";                    // Header value for this encoding
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final int FLAG_INT_COSTS = 1;   // Costs are written as ints
+    private static final int FLAG_SUMMARY = 2;     // Service counts and total cost present
+
+    private static final String[] TYPES = {AssignmentUpdate.FULL, AssignmentUpdate.DELTA, AssignmentUpdate.PERSONAL};
+
+    private AssignmentUpdateCodec() {
+    }
+
+    /**
+     * Encodes an update; the result can be decoded with {@link #decode(ByteBuffer)}.
+     */
+    public static byte[] encode(AssignmentUpdate update) {
+        int type = Arrays.asList(TYPES).indexOf(update.getType());
+        if (type < 0) {
+            throw new IllegalArgumentException("Unknown update type: " + update.getType());
+        }
+        List<Assignment> assignments = update.getAssignments() == null ? List.of() : update.getAssignments();
+        boolean summary = update.getServiceCounts() != null && update.getTotalCost() != null;
+
+        // Dictionary of every service name the update mentions, in order of first use
+        Map<String, Integer> services = new LinkedHashMap<>();
+        boolean intCosts = true;
+        for (Assignment a : assignments) {
+            if (a.getServiceName() != null) {
+                services.putIfAbsent(a.getServiceName(), services.size());
+            }
+            intCosts &= a.getCost() == (int) a.getCost();
+        }
+        if (summary) {
+            for (String name : update.getServiceCounts().keySet()) {
+                services.putIfAbsent(name, services.size());
+            }
+        }
+        if (services.size() > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many services to encode: " + services.size());
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + assignments.size() * (intCosts ? 10 : 14));
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeByte(type);
+            out.writeByte((intCosts ? FLAG_INT_COSTS : 0) | (summary ? FLAG_SUMMARY : 0));
+            out.writeLong(update.getVersion());
+            if (type == 1) {
+                out.writeLong(update.getBaseVersion());
+            }
+
+            out.writeShort(services.size());
+            for (String name : services.keySet()) {
+                byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(encoded.length);
+                out.write(encoded);
+            }
+
+            out.writeInt(assignments.size());
+            for (Assignment a : assignments) {
+                out.writeInt(a.getVolunteerId());
+                out.writeShort(a.getServiceName() == null ? -1 : services.get(a.getServiceName()));
+                if (intCosts) {
+                    out.writeInt((int) a.getCost());
+                } else {
+                    out.writeDouble(a.getCost());
+                }
+            }
+
+            if (type == 1) {
+                List<Integer> removed = update.getRemoved() == null ? List.of() : update.getRemoved();
+                out.writeInt(removed.size());
+                for (int id : removed) {
+                    out.writeInt(id);
+                }
+            }
+
+            if (summary) {
+                out.writeShort(update.getServiceCounts().size());
+                for (Map.Entry<String, Integer> e : update.getServiceCounts().entrySet()) {
+                    out.writeShort(services.get(e.getKey()));
+                    out.writeInt(e.getValue());
+                }
+                out.writeDouble(update.getTotalCost());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Not thrown by an in-memory stream
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes an update written by {@link #encode(AssignmentUpdate)}, consuming the buffer.
+     *
+     * @throws IllegalArgumentException if the data is not a supported encoding
+     */
+    public static AssignmentUpdate decode(ByteBuffer in) {
+        try {
+            if (in.get() != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported assignment update format");
+            }
+            int type = in.get();
+            int flags = in.get();
+            long version = in.getLong();
+            Long baseVersion = type == 1 ? in.getLong() : null;
+
+            String[] services = new String[in.getShort()];
+            for (int s = 0; s < services.length; s++) {
+                int length = in.getInt();
+                if (length > in.remaining()) {
+                    throw new BufferUnderflowException(); // Checked first, as the length is untrusted
+                }
+                byte[] encoded = new byte[length];
+                in.get(encoded);
+                services[s] = new String(encoded, StandardCharsets.UTF_8);
+            }
+
+            int count = in.getInt();
+            List<Assignment> assignments = new ArrayList<>(Math.min(count, in.remaining() / 10)); // Count is untrusted
+            for (int i = 0; i < count; i++) {
+                int volunteerId = in.getInt();
+                short service = in.getShort();
+                double cost = (flags & FLAG_INT_COSTS) != 0 ? in.getInt() : in.getDouble();
+                assignments.add(new Assignment(volunteerId, service < 0 ? null : services[service], cost));
+            }
+
+            if (type == 0) {
+                return new AssignmentUpdate(AssignmentUpdate.FULL, version, null, assignments, null);
+            }
+            if (type == 1) {
+                int removedCount = in.getInt();
+                List<Integer> removed = new ArrayList<>(Math.min(removedCount, in.remaining() / 4));
+                for (int i = 0; i < removedCount; i++) {
+                    removed.add(in.getInt());
+                }
+                return new AssignmentUpdate(AssignmentUpdate.DELTA, version, baseVersion, assignments, removed);
+            }
+            if (type == 2) {
+                Map<String, Integer> counts = null;
+                Double totalCost = null;
+                if ((flags & FLAG_SUMMARY) != 0) {
+                    counts = new TreeMap<>();
+                    for (int i = in.getShort(); i > 0; i--) {
+                        counts.put(services[in.getShort()], in.getInt());
+                    }
+                    totalCost = in.getDouble();
+                }
+                return new AssignmentUpdate(version, assignments, counts, totalCost);
+            }
+            throw new IllegalArgumentException("Unknown update type: " + type);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("Truncated assignment update", e);
+        }
+    }
+}
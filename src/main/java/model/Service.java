@@ -0,0 +1,49 @@
+package model;
+
+/**
+ * Represents a service volunteers can be assigned to,
+ * together with the maximum number of volunteers it takes.
+ */
+public class Service {
+    private String name;   // Name of the service
+    private int capacity;  // Maximum number of volunteers
+
+    /**
+     * Constructs a Service with the given name and capacity.
+     *
+     * @param name     the name of the service
+     * @param capacity the maximum number of volunteers
+     */
+    public Service(String name, int capacity) {
+        this.name = name;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gets the service name.
+     *
+     * @return service name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the capacity.
+     *
+     * @return maximum number of volunteers
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns a string representation of the service.
+     *
+     * @return service name with capacity
+     */
+    @Override
+    public String toString() {
+        return name + " (capacity: " + capacity + ")";
+    }
+}
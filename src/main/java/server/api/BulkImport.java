@@ -0,0 +1,149 @@
+package server.api;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import model.Volunteer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * One bulk import: streams volunteers from a JSON array or newline-delimited JSON and hands the valid
+ * ones to a sink in batches, so memory use does not grow with the input.
+ * <p>
+ * Invalid records (see {@link VolunteerValidation}) are counted and skipped. Input that cannot be parsed,
+ * or ends early, stops the import; the records accepted before it are still passed to the sink.
+ */
+final class BulkImport {
+    private static final int MAX_REPORTED_ERRORS = 20; // Rejection reasons listed in the result
+
+    private final Gson gson = new Gson();
+    private final int batchSize;
+    private final Set<String> services;            // Catalog services preferences may name
+    private final Consumer<List<Volunteer>> sink; // Receives each batch; the list is not reused afterwards
+
+    private int accepted;
+    private int rejected;
+    private final List<String> errors = new ArrayList<>();
+    private boolean malformed;                     // Input stopped being parseable
+    private Boolean array;                         // Input is a JSON array; null until its first token is read
+
+    BulkImport(int batchSize, Set<String> services, Consumer<List<Volunteer>> sink) {
+        this.batchSize = batchSize;
+        this.services = services;
+        this.sink = sink;
+    }
+
+    /**
+     * Reads the whole input. Parse and read errors end the import and are recorded, not thrown;
+     * a failure of the sink is thrown, and the batch it failed on is not counted or passed on again.
+     */
+    void read(Reader body) {
+        List<Volunteer> batch = new ArrayList<>(batchSize);
+        try (JsonReader reader = new JsonReader(body)) {
+            reader.setLenient(true); // Allows several top-level values, i.e. NDJSON
+            for (int record = 0; ; record++) {
+                JsonElement element;
+                try {
+                    element = next(reader);
+                } catch (JsonParseException | IllegalStateException | IOException e) { // IOException includes MalformedJsonException
+                    malformed = true;
+                    errors.add("Malformed input, import stopped: " + e.getMessage());
+                    break;
+                }
+                if (element == null) break;
+
+                String problem;
+                try {
+                    Volunteer v = gson.fromJson(element, Volunteer.class);
+                    problem = validate(element, v);
+                    if (problem == null) {
+                        batch.add(v);
+                    }
+                } catch (JsonParseException e) {
+                    problem = e.getMessage();
+                }
+                if (problem != null) {
+                    rejected++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add("Record " + record + ": " + problem);
+                    }
+                }
+
+                if (batch.size() == batchSize) {
+                    List<Volunteer> full = batch;
+                    batch = new ArrayList<>(batchSize); // The sink may keep the full list
+                    store(full);
+                }
+            }
+            store(batch); // Records accepted before malformed input are kept
+        } catch (IOException e) {
+            // Only closing the body can fail here; all of it has been handled
+        }
+    }
+
+    /**
+     * Whether the import was stopped by unparseable or truncated input.
+     */
+    boolean isMalformed() {
+        return malformed;
+    }
+
+    int getAccepted() {
+        return accepted;
+    }
+
+    int getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Accepted and rejected counts plus the first rejection reasons, as returned to the client.
+     */
+    Map<String, Object> result() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("accepted", accepted);
+        result.put("rejected", rejected);
+        result.put("errors", errors);
+        return result;
+    }
+
+    /**
+     * Next top-level value, or array element if the input is a JSON array; null at the end of the input.
+     */
+    private JsonElement next(JsonReader reader) throws IOException {
+        if (array == null) {
+            array = reader.peek() == JsonToken.BEGIN_ARRAY;
+            if (array) {
+                reader.beginArray();
+            }
+        }
+        boolean more = array ? reader.hasNext() : reader.peek() != JsonToken.END_DOCUMENT;
+        return more ? JsonParser.parseReader(reader) : null;
+    }
+
+    private void store(List<Volunteer> batch) {
+        if (batch.isEmpty()) return;
+        sink.accept(batch);
+        accepted += batch.size(); // Only once stored
+    }
+
+    /**
+     * Returns why a parsed volunteer cannot be stored, or null if it is valid.
+     */
+    private String validate(JsonElement element, Volunteer v) {
+        if (v == null || !element.isJsonObject()) return "not a volunteer object";
+        if (!element.getAsJsonObject().has("id")) return "missing id";
+        return VolunteerValidation.problem(v, services);
+    }
+}
@@ -1,16 +1,42 @@
 package server.api;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
 import model.Assignment;
-import model.Preference;
+import model.Service;
 import model.Volunteer;
 import server.broadcast.AssignmentBroadcaster;
-import server.core.GeneticOptimizer;
+import server.core.AssignmentOptimizer;
+import server.core.CompactVolunteer;
+import server.core.MigrationTopology;
+import server.core.OptimizerSettings;
+import server.core.PreferenceSnapshot;
 import server.core.PreferenceStore;
+import server.core.Roster;
+import server.core.ServiceCatalog;
+import server.jobs.OptimizationJob;
+import server.jobs.OptimizationJobManager;
+import server.jobs.ReoptimizationScheduler;
+import server.storage.CatalogFile;
+import server.storage.PreferenceJournal;
+import spark.Request;
 
 import static spark.Spark.*;
 
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletRequestWrapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Defines REST API endpoints and optimization trigger for the volunteer assignment system.
@@ -19,26 +45,25 @@ public class ServerAPI {
     private final PreferenceStore store = new PreferenceStore();             // Stores preferences from all volunteers
     private final AssignmentBroadcaster broadcaster = new AssignmentBroadcaster(); // Broadcasts assignment results
     private final Gson gson = new Gson();                                    // For JSON serialization/deserialization
+    private volatile Roster lastRoster;                                      // Last published result, used for warm starts
+    private final OptimizationJobManager jobs =
+            new OptimizationJobManager(this::runOptimization, this::publish); // Queues and coalesces optimization runs
+    private final ReoptimizationScheduler autoOptimizer = new ReoptimizationScheduler(jobs); // Opt-in re-optimization on changes
+    private PreferenceJournal journal;                                       // Write-ahead log and snapshots on disk
 
-    // Defines max capacities for each service
-    private final Map<String, Integer> serviceCapacities = Map.of(
-            "Reception", 4,
-            "Logistics", 3,
-            "Food Service", 5,
-            "Security", 4,
-            "Media", 2,
-            "Transport", 3,
-            "Medical", 2,
-            "Info Desk", 3,
-            "Cleanup", 4,
-            "Tech Support", 3
-    );
+    private static final int BULK_BATCH_SIZE = 1000; // Records applied per store version in bulk imports
+
+    private ServiceCatalog catalog;                                          // Services and capacities, changeable at runtime
+    private CatalogFile catalogFile;                                         // Keeps catalog changes across restarts
 
     /**
      * Initializes and starts the HTTP server with defined endpoints.
      */
     public void start() {
         port(8080); // Server listens on port 8080
+        openJournal(); // Restore preferences and services saved by earlier runs before accepting writes
+        catalog.addChangeListener(service -> onCatalogChange());
+        store.addChangeListener(autoOptimizer::onPreferenceChange); // Once per stored write; no-op until enabled via /auto-optimize
 
         // Enables CORS for all origins (useful for frontend communication)
         before((req, res) -> {
@@ -48,23 +73,342 @@ public class ServerAPI {
         // POST endpoint to receive or update volunteer preferences
         post("/preferences", (req, res) -> {
             Volunteer v = gson.fromJson(req.body(), Volunteer.class); // Parse JSON to Volunteer
-            store.addOrUpdatePreferences(v);                          // Save or update preferences
+            String problem = VolunteerValidation.problem(v, catalog.view().getCapacities().keySet());
+            if (problem != null) {
+                res.status(400);
+                return "Invalid preferences: " + problem;
+            }
+            storeDurably(List.of(v));                                 // Save or update preferences, acknowledge once durable
             return "Preferences received.";                           // Response message
         });
 
-        // POST endpoint to trigger optimization and broadcast assignment results
+        // POST endpoint importing many volunteers in one request, as a JSON array or newline-delimited JSON
+        // The body is parsed as a stream and applied in batches, so memory use does not grow with its size
+        post("/preferences/bulk", (req, res) -> {
+            res.type("application/json");
+            return gson.toJson(importPreferences(req, res));
+        });
+
+        // POST endpoint to queue an optimization; results are broadcast when the job completes
+        // Engine and tuning come from an optional JSON body and/or query parameters (see parseSettings)
         post("/optimize", (req, res) -> {
-            new Thread(() -> { // Run optimization asynchronously
-                System.out.println("Optimization thread started.");
-                GeneticOptimizer optimizer = new GeneticOptimizer(serviceCapacities); // Initialize optimizer with capacities
-                List<Assignment> result = optimizer.optimize(store.getAllVolunteers()); // Perform optimization
-                System.out.println("Optimization thread finished. Broadcasting results.");
-                broadcaster.broadcastAssignments(result); // Send results to all WebSocket clients
-            }).start();
-            return "Optimization started."; // Immediate response to client
+            OptimizerSettings settings;
+            try {
+                settings = parseSettings(req);
+                settings.createOptimizer(catalog.view().getCapacities()); // Validate before queueing
+            } catch (IllegalArgumentException | JsonSyntaxException e) {
+                res.status(400);
+                return "Invalid optimization settings: " + e.getMessage();
+            }
+
+            OptimizationJob job;
+            try {
+                job = jobs.submit(settings); // New job, or the waiting job with the same settings
+            } catch (RejectedExecutionException e) {
+                res.status(503);
+                return e.getMessage() + ", try again later.";
+            }
+            res.status(202);
+            res.type("application/json");
+            return gson.toJson(job);
+        });
+
+        // GET endpoint reporting a job's status, and its assignments once completed
+        get("/optimize/:id", (req, res) -> {
+            OptimizationJob job = findJob(req.params("id"));
+            if (job == null) {
+                res.status(404);
+                return "Unknown job.";
+            }
+            res.type("application/json");
+            return gson.toJson(job);
+        });
+
+        // GET endpoint showing whether automatic re-optimization is on, and its timing
+        get("/auto-optimize", (req, res) -> {
+            res.type("application/json");
+            return autoOptimizeStatus();
+        });
+
+        // POST endpoint configuring automatic re-optimization on preference changes
+        // Query parameters: enabled, quietPeriodMillis, maxDelayMillis, minIntervalMillis
+        post("/auto-optimize", (req, res) -> {
+            try {
+                if (req.queryParams("quietPeriodMillis") != null) autoOptimizer.setQuietPeriodMillis(Long.parseLong(req.queryParams("quietPeriodMillis")));
+                if (req.queryParams("maxDelayMillis") != null) autoOptimizer.setMaxDelayMillis(Long.parseLong(req.queryParams("maxDelayMillis")));
+                if (req.queryParams("minIntervalMillis") != null) autoOptimizer.setMinIntervalMillis(Long.parseLong(req.queryParams("minIntervalMillis")));
+                if (req.queryParams("enabled") != null) autoOptimizer.setEnabled(Boolean.parseBoolean(req.queryParams("enabled")));
+            } catch (IllegalArgumentException e) {
+                res.status(400);
+                return "Invalid auto-optimize settings: " + e.getMessage();
+            }
+            res.type("application/json");
+            return autoOptimizeStatus();
+        });
+
+        // GET endpoint listing the service catalog: version plus services with capacities, in catalog order
+        get("/services", (req, res) -> {
+            res.type("application/json");
+            return catalogJson();
+        });
+
+        // PUT endpoint adding a service or changing its capacity (query parameter or JSON body "capacity")
+        // A published roster is then repaired in place instead of being recomputed from scratch
+        put("/services/:name", (req, res) -> {
+            try {
+                String capacity = null;
+                if (req.body() != null && !req.body().isBlank()) { // Read before query parameters, which may consume a form body
+                    JsonObject body = gson.fromJson(req.body(), JsonObject.class);
+                    JsonElement value = body == null ? null : body.get("capacity");
+                    if (value != null && !value.isJsonNull()) {
+                        if (!value.isJsonPrimitive()) {
+                            throw new IllegalArgumentException("capacity must be a number");
+                        }
+                        capacity = value.getAsString();
+                    }
+                }
+                if (req.queryParams("capacity") != null) capacity = req.queryParams("capacity");
+                if (capacity == null) {
+                    throw new IllegalArgumentException("capacity is required");
+                }
+                catalog.put(req.params("name"), Integer.parseInt(capacity));
+            } catch (IllegalArgumentException | JsonSyntaxException e) {
+                res.status(400);
+                return "Invalid service: " + e.getMessage();
+            }
+            res.type("application/json");
+            return catalogJson();
+        });
+
+        // DELETE endpoint removing a service; volunteers on it are moved by the roster repair
+        delete("/services/:name", (req, res) -> {
+            if (!catalog.remove(req.params("name"))) {
+                res.status(404);
+                return "Unknown service.";
+            }
+            res.type("application/json");
+            return catalogJson();
+        });
+
+        // DELETE endpoint cancelling a queued or running job
+        delete("/optimize/:id", (req, res) -> {
+            OptimizationJob job = findJob(req.params("id"));
+            if (job == null || !jobs.cancel(job.getId())) {
+                res.status(404);
+                return "No active job with that ID.";
+            }
+            return "Job cancelled.";
         });
     }
 
+    /**
+     * Streams volunteers from the request body into the store, {@link #BULK_BATCH_SIZE} per write.
+     * Invalid records are counted and skipped; malformed or truncated input ends the import with status 400,
+     * keeping the records accepted before it.
+     *
+     * @return accepted and rejected counts plus the first rejection reasons
+     */
+    private Map<String, Object> importPreferences(Request req, spark.Response res) throws IOException {
+        BulkImport bulk = new BulkImport(BULK_BATCH_SIZE, catalog.view().getCapacities().keySet(), this::storeDurably);
+        bulk.read(new InputStreamReader(requestStream(req), StandardCharsets.UTF_8));
+        if (bulk.isMalformed()) {
+            res.status(400);
+        }
+        return bulk.result();
+    }
+
+    /**
+     * Writes volunteers as one store version and waits until they are journaled.
+     * If journaling fails the write is undone, so the store never serves a change that a restart would lose.
+     * Listeners are notified only after the journal append succeeded.
+     */
+    private void storeDurably(List<Volunteer> volunteers) {
+        PreferenceStore.Write write = store.write(volunteers);
+        try {
+            journal.append(write.getVersion(), volunteers).join();
+        } catch (CompletionException e) {
+            write.revert();
+            throw e;
+        }
+        write.commit(); // Only durable writes reach the auto-optimizer
+    }
+
+    /**
+     * The raw request body stream. Spark's request wrapper buffers the whole body on first read,
+     * so the underlying servlet request is used instead.
+     */
+    private static InputStream requestStream(Request req) throws IOException {
+        ServletRequest raw = req.raw();
+        while (raw instanceof ServletRequestWrapper) {
+            raw = ((ServletRequestWrapper) raw).getRequest();
+        }
+        return raw.getInputStream();
+    }
+
+    /**
+     * Opens the data directory given by the {@code volunteer.dataDir} system property (default {@code data}):
+     * loads the saved service catalog, loads the journal's contents into the store and starts logging new writes.
+     */
+    private void openJournal() {
+        try {
+            Path dataDir = Paths.get(System.getProperty("volunteer.dataDir", "data"));
+            catalogFile = new CatalogFile(dataDir);
+            ServiceCatalog saved = catalogFile.load();
+            catalog = saved != null ? saved : new ServiceCatalog(defaultServices(), 0);
+
+            journal = new PreferenceJournal(dataDir, 100_000);
+            List<CompactVolunteer> recovered = new ArrayList<>();
+            long version = journal.recover(store.getRegistry(), recovered::add);
+            store.restore(recovered, version);
+            journal.start(store::snapshot);
+            System.out.println("Restored " + recovered.size() + " volunteers (preferences version " + version + ").");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open preference journal", e);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> { // Flush queued records on exit
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.out.println("Could not close preference journal: " + e.getMessage());
+            }
+        }));
+    }
+
+    /**
+     * Performs one optimization run over an immutable snapshot of the current preferences.
+     * Called by the job manager on its worker thread.
+     */
+    private Roster runOptimization(OptimizerSettings settings) {
+        ServiceCatalog.View services = catalog.view(); // Capacities stay fixed for the whole run
+        AssignmentOptimizer optimizer = settings.createOptimizer(services.getCapacities());
+        System.out.println("Optimization started (" + optimizer.getClass().getSimpleName() + ").");
+
+        PreferenceSnapshot snapshot = store.snapshot(); // Consistent input for the whole run
+        if (settings.isWarmStart()) {
+            optimizer.setInitialRoster(lastRoster); // Start from the previous roster
+        }
+        List<Assignment> result = optimizer.optimize(snapshot.getVolunteers()); // Perform optimization
+        return new Roster(result, snapshot, services.getVersion());
+    }
+
+    /**
+     * Publishes a completed run: remembers it for warm starts and broadcasts it to all clients.
+     */
+    private void publish(Roster roster) {
+        lastRoster = roster;
+        System.out.println("Optimization finished (preferences version " + roster.getSnapshotVersion() + "). Broadcasting results.");
+        broadcaster.broadcastAssignments(roster.getAssignments()); // Send results to all WebSocket clients
+    }
+
+    /**
+     * Saves a changed catalog and, if a roster was published, queues a repair of it.
+     * The repair keeps every volunteer whose service still has room and re-places only the others,
+     * then polishes with local search; there is no evolutionary search.
+     */
+    private void onCatalogChange() {
+        saveCatalog();
+        broadcaster.broadcastCatalogChange(catalog.view().getVersion()); // Clients reload their service lists
+        if (lastRoster != null) {
+            OptimizerSettings repair = new OptimizerSettings();
+            repair.setEngine("ga");
+            repair.setWarmStart(true);
+            repair.setGenerations(0);
+            repair.setPopulation(2);
+            repair.setLocalSearchPasses(100);
+            OptimizationJob job = jobs.submit(OptimizationJob.Trigger.REPAIR, repair); // Never merged into a client's run
+            System.out.println("Service catalog changed, roster repair queued as job " + job.getId() + ".");
+        }
+    }
+
+    private synchronized void saveCatalog() {
+        try {
+            catalogFile.save(catalog.view()); // Always the latest view, so saves cannot go back in time
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private String catalogJson() {
+        ServiceCatalog.View view = catalog.view();
+        List<Service> services = new ArrayList<>();
+        view.getCapacities().forEach((name, capacity) -> services.add(new Service(name, capacity)));
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("version", view.getVersion());
+        result.put("services", services);
+        return gson.toJson(result);
+    }
+
+    /**
+     * Services used when no catalog has been saved yet.
+     */
+    private static Map<String, Integer> defaultServices() {
+        Map<String, Integer> services = new LinkedHashMap<>();
+        services.put("Reception", 4);
+        services.put("Logistics", 3);
+        services.put("Food Service", 5);
+        services.put("Security", 4);
+        services.put("Media", 2);
+        services.put("Transport", 3);
+        services.put("Medical", 2);
+        services.put("Info Desk", 3);
+        services.put("Cleanup", 4);
+        services.put("Tech Support", 3);
+        return services;
+    }
+
+    private String autoOptimizeStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", autoOptimizer.isEnabled());
+        status.put("quietPeriodMillis", autoOptimizer.getQuietPeriodMillis());
+        status.put("maxDelayMillis", autoOptimizer.getMaxDelayMillis());
+        status.put("minIntervalMillis", autoOptimizer.getMinIntervalMillis());
+        return gson.toJson(status);
+    }
+
+    /**
+     * Resolves a job from a path parameter, or null if the ID is malformed or unknown.
+     */
+    private OptimizationJob findJob(String id) {
+        try {
+            return jobs.get(Long.parseLong(id));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads optimization settings from the JSON body (if any), then lets query parameters override them.
+     * Supported parameters: engine, generations, population, mutationRate, seed, threads,
+     * islands, migrationInterval, migrants, topology, timeBudgetMillis, stallGenerations, targetCost,
+     * localSearchPasses, warmStart.
+     */
+    private OptimizerSettings parseSettings(Request req) {
+        OptimizerSettings settings = null;
+        if (req.body() != null && !req.body().isBlank()) {
+            settings = gson.fromJson(req.body(), OptimizerSettings.class);
+        }
+        if (settings == null) {
+            settings = new OptimizerSettings();
+        }
+
+        if (req.queryParams("engine") != null) settings.setEngine(req.queryParams("engine"));
+        if (req.queryParams("generations") != null) settings.setGenerations(Integer.valueOf(req.queryParams("generations")));
+        if (req.queryParams("population") != null) settings.setPopulation(Integer.valueOf(req.queryParams("population")));
+        if (req.queryParams("mutationRate") != null) settings.setMutationRate(Double.valueOf(req.queryParams("mutationRate")));
+        if (req.queryParams("seed") != null) settings.setSeed(Long.valueOf(req.queryParams("seed")));
+        if (req.queryParams("threads") != null) settings.setThreads(Integer.valueOf(req.queryParams("threads")));
+        if (req.queryParams("islands") != null) settings.setIslands(Integer.valueOf(req.queryParams("islands")));
+        if (req.queryParams("migrationInterval") != null) settings.setMigrationInterval(Integer.valueOf(req.queryParams("migrationInterval")));
+        if (req.queryParams("migrants") != null) settings.setMigrants(Integer.valueOf(req.queryParams("migrants")));
+        if (req.queryParams("topology") != null) settings.setTopology(MigrationTopology.valueOf(req.queryParams("topology").toUpperCase()));
+        if (req.queryParams("timeBudgetMillis") != null) settings.setTimeBudgetMillis(Long.valueOf(req.queryParams("timeBudgetMillis")));
+        if (req.queryParams("stallGenerations") != null) settings.setStallGenerations(Integer.valueOf(req.queryParams("stallGenerations")));
+        if (req.queryParams("targetCost") != null) settings.setTargetCost(Double.valueOf(req.queryParams("targetCost")));
+        if (req.queryParams("localSearchPasses") != null) settings.setLocalSearchPasses(Integer.valueOf(req.queryParams("localSearchPasses")));
+        if (req.queryParams("warmStart") != null) settings.setWarmStart(Boolean.parseBoolean(req.queryParams("warmStart")));
+        return settings;
+    }
+
     /**
      * Exposes the broadcaster (used for setting up WebSocket broadcasting).
      */
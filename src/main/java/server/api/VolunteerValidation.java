@@ -0,0 +1,43 @@
+package server.api;
+
+import model.Preference;
+import model.Volunteer;
+
+import java.util.Set;
+
+/**
+ * Checks submitted volunteers before they are stored.
+ * Preferences may only name services in the catalog, so the set of service names the store interns is
+ * bounded by the catalog rather than by whatever clients send.
+ */
+final class VolunteerValidation {
+    static final int MAX_NAME_LENGTH = 200; // Characters in a volunteer name
+
+    private VolunteerValidation() {
+    }
+
+    /**
+     * Returns why a volunteer cannot be stored, or null if it is valid.
+     *
+     * @param services names of the services in the catalog
+     */
+    static String problem(Volunteer v, Set<String> services) {
+        if (v == null) return "not a volunteer object";
+        if (v.getName() != null && v.getName().length() > MAX_NAME_LENGTH) {
+            return "name longer than " + MAX_NAME_LENGTH + " characters";
+        }
+        if (v.getPreferences() == null) return "missing preferences";
+        for (Preference p : v.getPreferences()) {
+            if (p == null || p.getServiceName() == null) return "preference without serviceName";
+            if (!services.contains(p.getServiceName())) return "unknown service " + quote(p.getServiceName());
+        }
+        return null;
+    }
+
+    /**
+     * Quotes a client-supplied name for an error message, shortened so the response stays small.
+     */
+    private static String quote(String name) {
+        return "'" + (name.length() > 50 ? name.substring(0, 50) + "..." : name) + "'";
+    }
+}
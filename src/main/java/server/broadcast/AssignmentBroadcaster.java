@@ -1,29 +1,95 @@
 package server.broadcast;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
 import model.Assignment;
+import model.AssignmentUpdate;
+import model.AssignmentUpdateCodec;
 import org.java_websocket.WebSocket;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.exceptions.WebsocketNotConnectedException;
+import org.java_websocket.extensions.permessage_deflate.PerMessageDeflateExtension;
+import org.java_websocket.framing.TextFrame;
 import org.java_websocket.handshake.ClientHandshake;
 import org.java_websocket.server.WebSocketServer;
 
 import java.net.InetSocketAddress;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A WebSocket server that manages client connections and broadcasts assignment results.
+ * <p>
+ * Each broadcast gets a new version. Clients normally receive a "delta" {@link AssignmentUpdate}
+ * holding only the assignments that changed since the previous version; a "full" update is sent
+ * to new connections, every {@code fullSnapshotInterval} broadcasts, when a delta would not be
+ * smaller, and to any client that sends {@code {"type":"resync"}}.
+ * <p>
+ * A client can instead send {@code {"type":"subscribe","volunteerId":n,"summary":true}} to receive only
+ * "personal" updates: that volunteer's assignment when it changes and, with {@code summary}, the
+ * per-service counts and total cost on every broadcast. {@code {"type":"unsubscribe"}} returns to the full roster.
+ * <p>
+ * Updates are JSON text messages unless the client's handshake carries
+ * {@code X-Assignment-Format: binary}, in which case they are binary {@link AssignmentUpdateCodec} messages.
+ * Both are compressed with permessage-deflate when the client supports it.
+ * <p>
+ * Roster updates are encoded once per version and format and the same bytes are handed to every
+ * connection. Sending never waits for a client: a connection whose previous message is still buffered
+ * skips the intermediate versions and gets the newest one once it has drained.
+ * <p>
+ * The changed volunteer IDs of the last {@code HISTORY_VERSIONS} versions are kept, so a client that skipped
+ * versions, or reconnects with the handshake header {@code X-Resume-Version: n} (or sends
+ * {@code {"type":"resume","version":n}}), gets one delta from {@code n} instead of a full update. Such deltas are encoded once per base version.
+ * A reconnecting subscriber sends {@code X-Subscribe: volunteerId[;summary]} so that it never receives the roster.
+ * <p>
+ * When the service catalog changes, every client gets the text message {@code {"type":"catalog","version":n}}
+ * and can fetch the new catalog from the HTTP API.
  */
 public class AssignmentBroadcaster extends WebSocketServer {
-    private final Set<WebSocket> connections = Collections.synchronizedSet(new HashSet<>()); // Active client connections
+    private final Map<WebSocket, ClientChannel> channels = new ConcurrentHashMap<>(); // Active client connections
     private final Gson gson = new Gson(); // For converting assignment data to JSON
 
+    private static final int DEFAULT_FULL_SNAPSHOT_INTERVAL = 10; // Broadcasts between two periodic full updates
+    private static final long FLUSH_INTERVAL_MS = 25;            // How often slow clients are re-checked
+    private static final int HISTORY_VERSIONS = 64;              // Versions a client can resume from
+
+    private final int fullSnapshotInterval;             // Every n-th broadcast is a full update
+    private int sinceFull;                              // Broadcasts since the last full update, guarded by this
+    private volatile Published latest;                  // Last broadcast roster, null before the first
+    private final Deque<Change> history = new ArrayDeque<>(); // Changes of recent versions, oldest first, guarded by this
+    // Versions start at the server's start time in microseconds, so a version a client kept from an earlier
+    // server run is never mistaken for one of this run and resuming from it falls back to a full update
+    private final long firstVersion = System.currentTimeMillis() * 1000;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "broadcast-flusher");
+        t.setDaemon(true);
+        return t;
+    });
+
     /**
      * Constructor initializes the WebSocket server on port 8090.
      */
     public AssignmentBroadcaster() {
-        super(new InetSocketAddress(8090)); // WebSocket will listen on port 8090
+        this(DEFAULT_FULL_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * @param fullSnapshotInterval send a full update at least every this many broadcasts
+     */
+    public AssignmentBroadcaster(int fullSnapshotInterval) {
+        super(new InetSocketAddress(8090), List.of(new Draft_6455(new PerMessageDeflateExtension()))); // WebSocket will listen on port 8090
+        if (fullSnapshotInterval < 1) {
+            throw new IllegalArgumentException("fullSnapshotInterval must be at least 1");
+        }
+        this.fullSnapshotInterval = fullSnapshotInterval;
+        setReuseAddr(true); // Allow a quick restart while old client connections are still in TIME_WAIT
+        flusher.scheduleWithFixedDelay(this::flushPending, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
         start(); // Start the server
         System.out.println("WebSocket server started on port 8090");
     }
@@ -33,8 +99,14 @@ public class AssignmentBroadcaster extends WebSocketServer {
      */
     @Override
     public void onOpen(WebSocket conn, ClientHandshake handshake) {
-        connections.add(conn); // Add client to the set
-        System.out.println("Client connected: " + conn.getRemoteSocketAddress());
+        boolean binary = AssignmentUpdateCodec.BINARY.equalsIgnoreCase(handshake.getFieldValue(AssignmentUpdateCodec.FORMAT_HEADER));
+        ClientChannel channel = new ClientChannel(conn, binary);
+        channel.subscription = Subscription.parse(handshake.getFieldValue(AssignmentUpdate.SUBSCRIBE_HEADER));
+        channel.sentVersion = parseVersion(handshake.getFieldValue(AssignmentUpdate.RESUME_HEADER));
+        channels.put(conn, channel);
+        System.out.println("Client connected: " + conn.getRemoteSocketAddress() + (binary ? " (binary)" : "")
+                + (channel.sentVersion > 0 ? " resuming from version " + channel.sentVersion : ""));
+        deliver(channel); // Full update, or the changes since the resumed version, as the base for later deltas
     }
 
     /**
@@ -42,16 +114,50 @@ public class AssignmentBroadcaster extends WebSocketServer {
      */
     @Override
     public void onClose(WebSocket conn, int code, String reason, boolean remote) {
-        connections.remove(conn); // Remove client from the set
+        channels.remove(conn);
         System.out.println("Client disconnected: " + conn.getRemoteSocketAddress());
     }
 
     /**
-     * Not used in this application because the server only sends messages.
+     * Handles client requests: resync, resume, subscribe and unsubscribe.
      */
     @Override
     public void onMessage(WebSocket conn, String message) {
-        // No need to handle incoming messages
+        ClientChannel channel = channels.get(conn);
+        if (channel == null) return;
+
+        String type;
+        Subscription subscription = null; // Requested by "subscribe"
+        Long resumeVersion = null;        // Requested by "resume"
+        try { // Every field is read here, so a value of the wrong type is ignored like malformed JSON
+            JsonObject request = gson.fromJson(message, JsonObject.class);
+            type = request != null && request.has("type") ? request.get("type").getAsString() : null;
+            if ("subscribe".equals(type) && request.has("volunteerId")) {
+                boolean summary = request.has("summary") && request.get("summary").getAsBoolean();
+                subscription = new Subscription(request.get("volunteerId").getAsInt(), summary);
+            } else if ("resume".equals(type) && request.has("version")) {
+                resumeVersion = request.get("version").getAsLong();
+            }
+        } catch (JsonSyntaxException | IllegalStateException | UnsupportedOperationException | NumberFormatException e) {
+            type = null;
+        }
+
+        if (subscription != null) {
+            channel.subscription = subscription;
+            resend(channel);
+        } else if ("unsubscribe".equals(type)) {
+            channel.subscription = null;
+            resend(channel);
+        } else if ("resync".equals(type)) {
+            resend(channel);
+        } else if (resumeVersion != null) {
+            synchronized (channel) {
+                channel.sentVersion = resumeVersion;
+            }
+            deliver(channel);
+        } else {
+            System.out.println("Ignoring client message: " + message);
+        }
     }
 
     /**
@@ -71,15 +177,282 @@ public class AssignmentBroadcaster extends WebSocketServer {
     }
 
     /**
-     * Broadcasts a list of assignment results to all connected clients.
+     * Broadcasts a new list of assignment results to all connected clients, as a delta when possible.
+     * Returns once every connection has been handed the update or marked as behind; it does not wait for sockets.
      */
     public void broadcastAssignments(List<Assignment> assignments) {
-        String json = gson.toJson(assignments); // Convert list to JSON string
-        synchronized (connections) {
-            for (WebSocket conn : connections) {
-                conn.send(json); // Send to each connected client
+        synchronized (this) {
+            Published previous = latest;
+            Map<Integer, Assignment> before = previous == null ? Map.of() : previous.assignments;
+            Map<Integer, Assignment> next = new LinkedHashMap<>();
+            Set<Integer> changedIds = new HashSet<>(); // Volunteers whose assignment changed or was removed
+            for (Assignment a : assignments) {
+                next.put(a.getVolunteerId(), a);
+                if (!sameAssignment(before.get(a.getVolunteerId()), a)) {
+                    changedIds.add(a.getVolunteerId());
+                }
+            }
+            for (Integer id : before.keySet()) {
+                if (!next.containsKey(id)) {
+                    changedIds.add(id);
+                }
+            }
+
+            Map<String, Integer> counts = new TreeMap<>();
+            double total = 0;
+            for (Assignment a : assignments) {
+                if (a.getServiceName() != null) {
+                    counts.merge(a.getServiceName(), 1, Integer::sum);
+                }
+                total += a.getCost();
+            }
+
+            long base = previous == null ? 0 : previous.version;
+            long version = previous == null ? firstVersion : base + 1;
+            boolean full = base == 0 || ++sinceFull >= fullSnapshotInterval || changedIds.size() >= assignments.size();
+            if (full) {
+                sinceFull = 0;
+            }
+            latest = new Published(version, base, full, next, changedIds, Collections.unmodifiableMap(counts), total);
+            history.addLast(new Change(version, base, changedIds.size() >= next.size() ? null : changedIds));
+            if (history.size() > HISTORY_VERSIONS) {
+                history.removeFirst();
+            }
+            System.out.println("Broadcasting version " + version + (full ? " (full, " + assignments.size() + " assignments)."
+                    : " (delta, " + changedIds.size() + " changes)."));
+        }
+
+        for (ClientChannel channel : channels.values()) {
+            deliver(channel);
+        }
+    }
+
+    /**
+     * Tells every connected client that the service catalog changed. The message is small and rare,
+     * so it is sent straight to each socket instead of going through the roster delivery.
+     */
+    public void broadcastCatalogChange(long catalogVersion) {
+        String message = "{\"type\":\"" + AssignmentUpdate.CATALOG + "\",\"version\":" + catalogVersion + "}";
+        for (ClientChannel channel : channels.values()) {
+            try {
+                channel.conn.send(message);
+            } catch (WebsocketNotConnectedException e) {
+                // Closing; it reloads the catalog when it reconnects
+            }
+        }
+    }
+
+    /**
+     * Sends the connection the latest state again, e.g. after it lost track or changed its subscription.
+     */
+    private void resend(ClientChannel channel) {
+        synchronized (channel) {
+            channel.sentVersion = -1;
+        }
+        deliver(channel);
+    }
+
+    /**
+     * Brings one connection up to the latest roster, unless it is still writing an earlier message.
+     */
+    private void deliver(ClientChannel channel) {
+        WebSocket conn = channel.conn;
+        synchronized (channel) {
+            Published roster = latest; // Read under the channel lock so versions reach a client in order
+            if (roster == null || channel.sentVersion == roster.version || !conn.isOpen()) return;
+            if (conn.hasBufferedData()) {
+                channel.pending = true; // Slow client: keep only the newest roster for later
+                return;
+            }
+            channel.pending = false;
+
+            try {
+                Subscription subscription = channel.subscription;
+                if (subscription != null) {
+                    if (subscription.summary || channel.sentVersion != roster.baseVersion
+                            || roster.changedIds.contains(subscription.volunteerId)) {
+                        send(channel, roster.personalUpdate(gson, subscription, channel.binary));
+                    }
+                } else {
+                    byte[] delta = channel.sentVersion > 0
+                            ? roster.deltaSince(channel.sentVersion, gson, channel.binary, this::changedSince) : null;
+                    send(channel, delta != null ? delta : roster.fullUpdate(gson, channel.binary)); // New, resyncing or too far behind
+                }
+                channel.sentVersion = roster.version;
+            } catch (WebsocketNotConnectedException e) {
+                // Closed meanwhile; onClose removes the channel
+            }
+        }
+    }
+
+    /**
+     * Volunteers whose assignment changed after {@code since} up to {@code upTo}, or null if {@code since} is
+     * older than the history or not a version of this run, or a version in between changed the whole roster.
+     */
+    private synchronized Set<Integer> changedSince(long since, long upTo) {
+        Set<Integer> ids = new HashSet<>();
+        boolean known = false;
+        for (Change change : history) {
+            known |= change.baseVersion == since || change.version == since;
+            if (change.version > since && change.version <= upTo) {
+                if (change.changedIds == null) return null;
+                for (int id : change.changedIds) {
+                    ids.add(id);
+                }
             }
         }
-        System.out.println("Assignments broadcasted to all clients.");
+        return known && since >= firstVersion ? ids : null;
+    }
+
+    private static long parseVersion(String header) {
+        try {
+            return header == null || header.isEmpty() ? -1 : Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return -1; // Treated like a new client
+        }
+    }
+
+    /**
+     * Sends an encoded update in a fresh frame with its own buffer over the shared bytes. Frames must not be
+     * shared: compression rewrites them per connection, and the encoder moves the payload buffer's position,
+     * so one frame sent from several threads at once would be garbled.
+     */
+    private static void send(ClientChannel channel, byte[] encoded) {
+        if (channel.binary) {
+            channel.conn.send(ByteBuffer.wrap(encoded));
+        } else {
+            TextFrame frame = new TextFrame();
+            frame.setPayload(ByteBuffer.wrap(encoded)); // Already UTF-8
+            channel.conn.sendFrame(frame);
+        }
+    }
+
+    /**
+     * Retries connections that were skipped because their socket had not drained yet.
+     */
+    private void flushPending() {
+        try {
+            for (ClientChannel channel : channels.values()) {
+                if (channel.pending) {
+                    deliver(channel);
+                }
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace(); // Keep the scheduled task alive
+        }
+    }
+
+    private static boolean sameAssignment(Assignment before, Assignment after) {
+        return before != null
+                && Objects.equals(before.getServiceName(), after.getServiceName())
+                && before.getCost() == after.getCost();
+    }
+
+    /**
+     * One broadcast roster version. Its updates are encoded on first use per format and then shared by all connections.
+     */
+    private static final class Published {
+        private static final byte[] NO_DELTA = new byte[0]; // Cached marker: send a full update instead
+
+        final long version;                         // Version of this roster
+        final long baseVersion;                     // Previous version, 0 for the first
+        final Map<Integer, Assignment> assignments; // Roster by volunteer ID
+        final Set<Integer> changedIds;              // Volunteers whose assignment changed or was removed since baseVersion
+        final Map<String, Integer> serviceCounts;   // Volunteers per service
+        final double totalCost;                     // Total cost of the roster
+        private final boolean fullOnly;             // Clients at baseVersion get a full update, e.g. the periodic one
+        private final byte[][] full = new byte[2][];  // Encoded full update per format (JSON, binary), built on demand
+        private final Map<Long, byte[][]> deltas = new HashMap<>(); // Encoded delta per base version and format
+
+        Published(long version, long baseVersion, boolean fullOnly, Map<Integer, Assignment> assignments,
+                  Set<Integer> changedIds, Map<String, Integer> serviceCounts, double totalCost) {
+            this.version = version;
+            this.baseVersion = baseVersion;
+            this.fullOnly = fullOnly;
+            this.assignments = assignments;
+            this.changedIds = changedIds;
+            this.serviceCounts = serviceCounts;
+            this.totalCost = totalCost;
+        }
+
+        synchronized byte[] fullUpdate(Gson gson, boolean binary) {
+            int format = binary ? 1 : 0;
+            if (full[format] == null) {
+                full[format] = encode(gson, new AssignmentUpdate(AssignmentUpdate.FULL, version, null,
+                        new ArrayList<>(assignments.values()), null), binary);
+            }
+            return full[format];
+        }
+
+        /**
+         * Delta from {@code since} to this version, or null if the client needs a full update.
+         *
+         * @param changes looks up the volunteers changed between two versions, null if no longer known
+         */
+        synchronized byte[] deltaSince(long since, Gson gson, boolean binary, ChangeLog changes) {
+            int format = binary ? 1 : 0;
+            byte[][] cached = deltas.get(since);
+            if (cached == null || cached[format] == null) {
+                Set<Integer> ids;
+                if (since == baseVersion) {
+                    ids = fullOnly ? null : changedIds;
+                } else {
+                    ids = changes.changedSince(since, version);
+                    if (ids == null) return null; // Unknown base; not cached so stray versions cannot grow the map
+                }
+                if (cached == null) {
+                    cached = new byte[2][];
+                    deltas.put(since, cached);
+                }
+                cached[format] = ids == null || ids.size() >= assignments.size() ? NO_DELTA : encodeDelta(since, ids, gson, binary);
+            }
+            return cached[format] == NO_DELTA ? null : cached[format];
+        }
+
+        private byte[] encodeDelta(long since, Set<Integer> ids, Gson gson, boolean binary) {
+            List<Assignment> changed = new ArrayList<>();
+            List<Integer> removed = new ArrayList<>();
+            for (Integer id : ids) {
+                Assignment a = assignments.get(id);
+                if (a != null) {
+                    changed.add(a);
+                } else {
+                    removed.add(id);
+                }
+            }
+            return encode(gson, new AssignmentUpdate(AssignmentUpdate.DELTA, version, since, changed, removed), binary);
+        }
+
+        byte[] personalUpdate(Gson gson, Subscription subscription, boolean binary) {
+            Assignment own = assignments.get(subscription.volunteerId);
+            return encode(gson, new AssignmentUpdate(version, own == null ? List.of() : List.of(own),
+                    subscription.summary ? serviceCounts : null, subscription.summary ? totalCost : null), binary);
+        }
+
+        private static byte[] encode(Gson gson, AssignmentUpdate update, boolean binary) {
+            return binary ? AssignmentUpdateCodec.encode(update) : gson.toJson(update).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * What one broadcast changed. The history keeps only these, not the rosters and their encoded updates.
+     */
+    private static final class Change {
+        final long version;
+        final long baseVersion;
+        final int[] changedIds; // Null if every volunteer changed; no delta across this version is then smaller
+
+        Change(long version, long baseVersion, Set<Integer> changedIds) {
+            this.version = version;
+            this.baseVersion = baseVersion;
+            this.changedIds = changedIds == null ? null : changedIds.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Source of the changes between two broadcast versions.
+     */
+    private interface ChangeLog {
+        Set<Integer> changedSince(long since, long upTo);
     }
 }
@@ -0,0 +1,23 @@
+package server.broadcast;
+
+import org.java_websocket.WebSocket;
+
+/**
+ * Delivery state of one client connection.
+ * <p>
+ * A connection has at most one message in the socket's outbound buffer; while that is still being
+ * written, newer rosters are not queued behind it but only marked {@code pending}, so the client later
+ * receives the newest roster once instead of every stale one in turn.
+ */
+final class ClientChannel {
+    final WebSocket conn;
+    final boolean binary;               // Client asked for AssignmentUpdateCodec instead of JSON
+    volatile Subscription subscription; // Null for clients receiving the whole roster
+    volatile boolean pending;           // A newer roster is waiting for the socket to drain
+    long sentVersion = -1;              // Roster version the client last received, guarded by this
+
+    ClientChannel(WebSocket conn, boolean binary) {
+        this.conn = conn;
+        this.binary = binary;
+    }
+}
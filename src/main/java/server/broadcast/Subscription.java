@@ -0,0 +1,30 @@
+package server.broadcast;
+
+/**
+ * What a connection subscribed to: one volunteer's assignment, optionally with the roster summary.
+ * Held by the connection's {@link ClientChannel}; connections without one receive the whole roster.
+ */
+final class Subscription {
+    final int volunteerId;   // Volunteer whose assignment is sent
+    final boolean summary;   // Also send per-service counts and total cost
+
+    Subscription(int volunteerId, boolean summary) {
+        this.volunteerId = volunteerId;
+        this.summary = summary;
+    }
+
+    /**
+     * Parses the {@code X-Subscribe} handshake header, "volunteerId" or "volunteerId;summary".
+     *
+     * @return the subscription, or null if the header is missing or malformed
+     */
+    static Subscription parse(String header) {
+        if (header == null || header.isBlank()) return null;
+        String[] parts = header.trim().split(";");
+        try {
+            return new Subscription(Integer.parseInt(parts[0].trim()), parts.length > 1 && "summary".equals(parts[1].trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
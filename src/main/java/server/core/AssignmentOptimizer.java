@@ -0,0 +1,30 @@
+package server.core;
+
+import model.Assignment;
+import model.Volunteer;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An engine that assigns volunteers to capacity-limited services, minimizing total dissatisfaction.
+ */
+public interface AssignmentOptimizer {
+
+    /**
+     * Computes one assignment per volunteer.
+     *
+     * @param volunteers volunteers with their ranked preferences
+     * @return assignments in the iteration order of {@code volunteers}
+     */
+    List<Assignment> optimize(Collection<Volunteer> volunteers);
+
+    /**
+     * Offers the previously published roster as a starting point for the next run.
+     * Engines that cannot use it ignore it.
+     *
+     * @param roster last published roster, or {@code null} to start cold
+     */
+    default void setInitialRoster(Roster roster) {
+    }
+}
@@ -0,0 +1,151 @@
+package server.core;
+
+import model.Preference;
+import model.Volunteer;
+
+import java.util.*;
+
+/**
+ * Index-based view of one optimization input.
+ * Volunteers and services are mapped once to dense indices so that a candidate
+ * solution can be stored as a plain {@code int[]} holding one service index per volunteer.
+ */
+final class AssignmentProblem {
+    static final int UNASSIGNED = -1; // Gene value for a volunteer with no service
+
+    private final int[] volunteerIds;      // Volunteer index -> volunteer ID
+    private final String[] serviceNames;   // Service index -> service name
+    private final Map<String, Integer> serviceIndex; // Service name -> service index
+    private final int[] capacities;        // Service index -> max volunteers
+    private final int catalogSize;         // Services [0, catalogSize) come from the capacity map
+    private final int[][] preferences;     // Volunteer index -> ranked service indices
+    private final int[] costTable;         // Row per volunteer, column s + 1 per service (column 0 = unassigned)
+    private final int rowWidth;            // Columns per cost table row
+
+    AssignmentProblem(Map<String, Integer> serviceCapacities, Collection<Volunteer> volunteers) {
+        this.serviceIndex = new HashMap<>();
+        List<String> names = new ArrayList<>(serviceCapacities.keySet());
+        for (int s = 0; s < names.size(); s++) {
+            serviceIndex.put(names.get(s), s);
+        }
+        this.catalogSize = names.size();
+
+        this.volunteerIds = new int[volunteers.size()];
+        this.preferences = new int[volunteers.size()][];
+        int v = 0;
+        for (Volunteer volunteer : volunteers) {
+            List<Preference> prefs = volunteer.getPreferences();
+            int[] ranked = new int[prefs.size()];
+            for (int i = 0; i < ranked.length; i++) {
+                String name = prefs.get(i).getServiceName();
+                Integer s = serviceIndex.get(name);
+                if (s == null) {
+                    // Services outside the catalog are still tracked, with no room, so ranks stay comparable
+                    s = names.size();
+                    serviceIndex.put(name, s);
+                    names.add(name);
+                }
+                ranked[i] = s;
+            }
+            volunteerIds[v] = volunteer.getId();
+            preferences[v] = ranked;
+            v++;
+        }
+
+        this.serviceNames = names.toArray(new String[0]);
+        this.capacities = new int[serviceNames.length];
+        for (int s = 0; s < capacities.length; s++) {
+            capacities[s] = serviceCapacities.getOrDefault(serviceNames[s], 0);
+        }
+
+        this.rowWidth = serviceNames.length + 1;
+        this.costTable = buildCostTable();
+    }
+
+    /**
+     * Fills the volunteer x service cost table once so fitness evaluation is a plain lookup.
+     */
+    private int[] buildCostTable() {
+        int[] table = new int[volunteerIds.length * rowWidth];
+        for (int v = 0; v < volunteerIds.length; v++) {
+            int[] prefs = preferences[v];
+            int row = v * rowWidth;
+
+            // Heavy penalty if the service isn't in the preference list
+            int Nd = prefs.length;
+            Arrays.fill(table, row, row + rowWidth, 10 * Nd * Nd);
+
+            // Quadratic penalty for lower-ranked preferences; the first occurrence of a service wins
+            for (int i = prefs.length - 1; i >= 0; i--) {
+                table[row + prefs[i] + 1] = i * i;
+            }
+        }
+        return table;
+    }
+
+    int volunteerCount() {
+        return volunteerIds.length;
+    }
+
+    int serviceCount() {
+        return serviceNames.length;
+    }
+
+    /**
+     * Number of services that were configured with an explicit capacity.
+     * Only these are used as fallback or mutation targets.
+     */
+    int catalogSize() {
+        return catalogSize;
+    }
+
+    int volunteerId(int v) {
+        return volunteerIds[v];
+    }
+
+    String serviceName(int s) {
+        return s == UNASSIGNED ? null : serviceNames[s];
+    }
+
+    /**
+     * Index of a service by name, or {@link #UNASSIGNED} if the problem does not know it.
+     */
+    int serviceIndex(String name) {
+        return name == null ? UNASSIGNED : serviceIndex.getOrDefault(name, UNASSIGNED);
+    }
+
+    int capacity(int s) {
+        return capacities[s];
+    }
+
+    /**
+     * Ranked service indices of a volunteer (index 0 = first choice).
+     */
+    int[] preferences(int v) {
+        return preferences[v];
+    }
+
+    /**
+     * Dissatisfaction cost of giving service {@code s} to volunteer {@code v}.
+     */
+    int cost(int v, int s) {
+        return costTable[v * rowWidth + s + 1];
+    }
+
+    /**
+     * Sum of every volunteer's cheapest possible cost, ignoring capacities.
+     * No assignment can cost less, so reaching it means the result is optimal.
+     */
+    long lowerBound() {
+        long bound = 0;
+        for (int v = 0; v < volunteerIds.length; v++) {
+            int row = v * rowWidth;
+            int min = Integer.MAX_VALUE;
+            for (int c = 0; c < rowWidth; c++) {
+                min = Math.min(min, costTable[row + c]);
+            }
+            bound += min;
+        }
+        return bound;
+    }
+}
@@ -0,0 +1,109 @@
+package server.core;
+
+import model.Preference;
+import model.Volunteer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Server-side storage form of a {@link Volunteer}: ranked preferences are kept as a packed array
+ * of {@link ServiceRegistry} IDs instead of a list of {@link Preference} objects with their own
+ * service name strings. Converted from and back to {@link Volunteer} at the API boundary.
+ */
+public final class CompactVolunteer {
+    private final int id;
+    private final String name;
+    private final short[] ranks;       // Service ID per rank (index 0 = first choice)
+    private final int[] priorities;    // Explicit priorities, or null when each equals its 1-based rank
+
+    private CompactVolunteer(int id, String name, short[] ranks, int[] priorities) {
+        this.id = id;
+        this.name = name;
+        this.ranks = ranks;
+        this.priorities = priorities;
+    }
+
+    /**
+     * Packs a volunteer, registering any new service names. A missing preference list is stored as empty.
+     */
+    public static CompactVolunteer of(Volunteer volunteer, ServiceRegistry registry) {
+        List<Preference> prefs = volunteer.getPreferences() == null ? List.of() : volunteer.getPreferences();
+        short[] ranks = new short[prefs.size()];
+        int[] priorities = null;
+        for (int i = 0; i < ranks.length; i++) {
+            Preference p = prefs.get(i);
+            ranks[i] = (short) registry.intern(p.getServiceName());
+            if (p.getPriority() != i + 1 && priorities == null) {
+                priorities = new int[ranks.length];
+                for (int j = 0; j < i; j++) {
+                    priorities[j] = j + 1;
+                }
+            }
+            if (priorities != null) {
+                priorities[i] = p.getPriority();
+            }
+        }
+        return new CompactVolunteer(volunteer.getId(), volunteer.getName(), ranks, priorities);
+    }
+
+    /**
+     * Wraps already packed data, e.g. read from a snapshot file; the arrays are taken over, not copied.
+     *
+     * @param ranks      service IDs of the registry the record will be used with, first choice first
+     * @param priorities explicit priorities, or null when each equals its 1-based rank
+     */
+    public static CompactVolunteer of(int id, String name, short[] ranks, int[] priorities) {
+        if (priorities != null && priorities.length != ranks.length) {
+            throw new IllegalArgumentException("Expected " + ranks.length + " priorities, got " + priorities.length);
+        }
+        return new CompactVolunteer(id, name, ranks, priorities);
+    }
+
+    /**
+     * Unpacks into a new {@link Volunteer}; service names are the registry's shared instances.
+     */
+    public Volunteer toVolunteer(ServiceRegistry registry) {
+        List<Preference> prefs = new ArrayList<>(ranks.length);
+        for (int i = 0; i < ranks.length; i++) {
+            prefs.add(new Preference(registry.name(ranks[i]), priority(i)));
+        }
+        return new Volunteer(id, name, prefs);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int rankCount() {
+        return ranks.length;
+    }
+
+    /**
+     * Service ID at {@code rank} (0 = first choice), or {@link ServiceRegistry#NONE}.
+     */
+    public int serviceId(int rank) {
+        return ranks[rank];
+    }
+
+    public int priority(int rank) {
+        return priorities == null ? rank + 1 : priorities[rank];
+    }
+
+    /**
+     * Whether {@code volunteer} ranks the same services in the same order as this record.
+     */
+    boolean hasSameRanking(Volunteer volunteer, ServiceRegistry registry) {
+        List<Preference> prefs = volunteer.getPreferences() == null ? List.of() : volunteer.getPreferences();
+        if (prefs.size() != ranks.length) return false;
+        for (int i = 0; i < ranks.length; i++) {
+            if (!Objects.equals(registry.name(ranks[i]), prefs.get(i).getServiceName())) return false;
+        }
+        return true;
+    }
+}
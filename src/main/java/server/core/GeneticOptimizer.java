@@ -1,158 +1,448 @@
 package server.core;
 
 import model.Assignment;
-import model.Preference;
 import model.Volunteer;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 /**
  * Uses a genetic algorithm to assign volunteers to services based on their preferences,
  * while respecting service capacity constraints and minimizing overall dissatisfaction.
+ * Each individual is an {@code int[]} holding one service index per volunteer index
+ * (see {@link AssignmentProblem}) and carries its fitness, computed once (see {@link Individual}).
+ * <p>
+ * Initial individuals and offspring can be built on several threads. Every individual gets its own
+ * random stream split from the run seed in a fixed order, so a seeded run returns the same result
+ * whatever the thread count.
+ * <p>
+ * With more than one island, several independent populations evolve concurrently and exchange
+ * their best individuals every {@code migrationInterval} generations (see {@link MigrationTopology}).
+ * <p>
+ * A run may end before {@code maxGenerations} on a time budget, after a number of generations without
+ * improvement, or once a target cost or the problem's lower bound is reached (see {@link StopCondition}).
+ * The best individual found so far is always returned.
+ * <p>
+ * Given the previously published {@link Roster}, the initial population is seeded from it: volunteers
+ * whose preferences did not change keep their service and only new, changed or displaced volunteers
+ * are placed again.
+ * <p>
+ * Optionally, the final best individual (and a warm-start seed) is refined by {@link LocalSearch}
+ * until no single move or pairwise swap improves it.
  */
-public class GeneticOptimizer {
-    private final int maxGenerations = 100;      // Number of generations to evolve
-    private final int populationSize = 50;       // Size of population in each generation
-    private final double mutationRate = 0.1;     // Probability of mutation
+public class GeneticOptimizer implements AssignmentOptimizer {
+    private int maxGenerations = 100;      // Number of generations to evolve
+    private int populationSize = 50;       // Size of population in each generation
+    private double mutationRate = 0.1;     // Probability of mutation
 
     private final Map<String, Integer> serviceCapacities; // Max volunteers per service
 
+    private long seed = new SplittableRandom().nextLong(); // Seed for all random decisions of a run
+    private int threads = 1;                                // Worker threads used for evaluation and breeding
+
+    private int islands = 1;                                // Independent sub-populations (1 = single population)
+    private int migrationInterval = 10;                     // Generations between migrations
+    private int migrants = 2;                               // Individuals sent per migration
+    private MigrationTopology topology = MigrationTopology.RING;
+
+    private long timeBudgetMillis = 0;                      // Wall-clock budget, 0 = unlimited
+    private int stallGenerations = 0;                       // Stop after this many generations without improvement, 0 = never
+    private double targetCost = 0;                          // Stop once the best cost is at or below this
+
+    private Roster initialRoster;                           // Warm-start source, null for a cold start
+    private int localSearchPasses = 0;                      // Max local-search passes on the result, 0 = off
+
     public GeneticOptimizer(Map<String, Integer> serviceCapacities) {
         this.serviceCapacities = serviceCapacities;
     }
 
+    public void setMaxGenerations(int maxGenerations) {
+        if (maxGenerations < 0) {
+            throw new IllegalArgumentException("generations must not be negative");
+        }
+        this.maxGenerations = maxGenerations;
+    }
+
     /**
-     * Entry point for optimization process.
+     * Sets the population size (per island in island mode).
      */
-    public List<Assignment> optimize(Collection<Volunteer> volunteers) {
-        List<Map<Integer, String>> population = generateInitialPopulation(volunteers);
+    public void setPopulationSize(int populationSize) {
+        if (populationSize < 2) {
+            throw new IllegalArgumentException("population must be at least 2");
+        }
+        this.populationSize = populationSize;
+    }
 
-        for (int gen = 0; gen < maxGenerations; gen++) {
-            // Sort by fitness (lower cost is better)
-            population.sort(Comparator.comparingDouble(assignments -> computeTotalCost(assignments, volunteers)));
+    public void setMutationRate(double mutationRate) {
+        if (mutationRate < 0 || mutationRate > 1) {
+            throw new IllegalArgumentException("mutationRate must be between 0 and 1");
+        }
+        this.mutationRate = mutationRate;
+    }
 
-            List<Map<Integer, String>> nextGen = new ArrayList<>();
+    /**
+     * Fixes the random seed so that runs over the same input are reproducible.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
 
-            // Elitism: retain top 10%
-            int eliteCount = (int) (populationSize * 0.1);
-            nextGen.addAll(population.subList(0, eliteCount));
+    /**
+     * Sets how many threads build and evaluate individuals (1 = run on the caller's thread).
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        this.threads = threads;
+    }
 
-            // Fill rest of next generation with offspring
-            while (nextGen.size() < populationSize) {
-                Map<Integer, String> parent1 = select(population, volunteers);
-                Map<Integer, String> parent2 = select(population, volunteers);
-                Map<Integer, String> child = crossover(parent1, parent2);
-                mutate(child);
-                nextGen.add(child);
-            }
+    /**
+     * Sets the number of islands; each island evolves its own population of the configured size.
+     */
+    public void setIslands(int islands) {
+        if (islands < 1) {
+            throw new IllegalArgumentException("islands must be at least 1");
+        }
+        this.islands = islands;
+    }
 
-            population = nextGen;
+    /**
+     * Sets how many generations each island evolves between two migrations.
+     */
+    public void setMigrationInterval(int migrationInterval) {
+        if (migrationInterval < 1) {
+            throw new IllegalArgumentException("migrationInterval must be at least 1");
         }
+        this.migrationInterval = migrationInterval;
+    }
 
-        // Return the best assignment after all generations
-        Map<Integer, String> best = population.get(0);
-        return toAssignmentList(best, volunteers);
+    /**
+     * Sets how many individuals an island sends per migration.
+     */
+    public void setMigrants(int migrants) {
+        if (migrants < 0) {
+            throw new IllegalArgumentException("migrants must not be negative");
+        }
+        this.migrants = migrants;
     }
 
     /**
-     * Generates initial population with random valid assignments.
+     * Limits the wall-clock time of a run; 0 disables the limit.
+     */
+    public void setTimeBudgetMillis(long timeBudgetMillis) {
+        if (timeBudgetMillis < 0) {
+            throw new IllegalArgumentException("timeBudgetMillis must not be negative");
+        }
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    /**
+     * Stops a run after this many generations without improvement of the best cost; 0 disables the check.
      */
-    private List<Map<Integer, String>> generateInitialPopulation(Collection<Volunteer> volunteers) {
-        List<Map<Integer, String>> population = new ArrayList<>();
-        List<String> services = new ArrayList<>(serviceCapacities.keySet());
+    public void setStallGenerations(int stallGenerations) {
+        if (stallGenerations < 0) {
+            throw new IllegalArgumentException("stallGenerations must not be negative");
+        }
+        this.stallGenerations = stallGenerations;
+    }
 
-        for (int i = 0; i < populationSize; i++) {
-            Map<Integer, String> assignment = new HashMap<>();
-            Map<String, Integer> serviceLoad = new HashMap<>();
+    /**
+     * Stops a run as soon as the best cost is at or below this value.
+     * A run always stops at the problem's lower bound, even without a target.
+     */
+    public void setTargetCost(double targetCost) {
+        this.targetCost = targetCost;
+    }
 
-            for (Volunteer v : volunteers) {
-                List<String> prefs = new ArrayList<>();
-                for (Preference p : v.getPreferences()) {
-                    prefs.add(p.getServiceName());
-                }
-                Collections.shuffle(prefs); // Randomize preference order
-
-                String chosen = null;
-                for (String s : prefs) {
-                    int used = serviceLoad.getOrDefault(s, 0);
-                    if (used < serviceCapacities.getOrDefault(s, 5)) {
-                        chosen = s;
-                        serviceLoad.put(s, used + 1);
-                        break;
-                    }
-                }
+    public void setMigrationTopology(MigrationTopology topology) {
+        this.topology = Objects.requireNonNull(topology);
+    }
 
-                // Fallback if all preferences are full
-                if (chosen == null) {
-                    for (String s : services) {
-                        int used = serviceLoad.getOrDefault(s, 0);
-                        if (used < serviceCapacities.get(s)) {
-                            chosen = s;
-                            serviceLoad.put(s, used + 1);
-                            break;
-                        }
-                    }
-                }
+    /**
+     * Enables local-search refinement of the result with at most this many passes; 0 disables it.
+     */
+    public void setLocalSearchPasses(int localSearchPasses) {
+        if (localSearchPasses < 0) {
+            throw new IllegalArgumentException("localSearchPasses must not be negative");
+        }
+        this.localSearchPasses = localSearchPasses;
+    }
+
+    @Override
+    public void setInitialRoster(Roster roster) {
+        this.initialRoster = roster;
+    }
+
+    /**
+     * Entry point for optimization process.
+     */
+    @Override
+    public List<Assignment> optimize(Collection<Volunteer> volunteers) {
+        AssignmentProblem problem = new AssignmentProblem(serviceCapacities, volunteers);
+        SplittableRandom random = new SplittableRandom(seed);
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        StopCondition stop = new StopCondition(timeBudgetMillis, stallGenerations,
+                Math.max(targetCost, problem.lowerBound()));
+
+        Individual seedIndividual = initialRoster == null ? null : warmStart(problem, volunteers);
+        if (seedIndividual != null && localSearchPasses > 0) {
+            new LocalSearch(problem).improve(seedIndividual, localSearchPasses);
+        }
 
-                assignment.put(v.getId(), chosen);
+        try {
+            List<Individual> population;
+            if (islands > 1) {
+                population = evolveIslands(problem, random, pool, stop, seedIndividual);
+            } else {
+                population = generateInitialPopulation(problem, random, pool, seedIndividual);
+                population = evolve(population, problem, random, pool, maxGenerations, stop, true);
             }
 
-            population.add(assignment);
+            // Return the best assignment after all generations, polished to a local optimum if enabled
+            Individual best = population.get(0);
+            if (localSearchPasses > 0) {
+                best = new Individual(best);
+                new LocalSearch(problem).improve(best, localSearchPasses);
+            }
+            return toAssignmentList(best.genes(), problem);
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
         }
+    }
+
+    /**
+     * Evolves a population for up to the given number of generations and returns it sorted by cost.
+     * Stops early when the time budget expires or, if {@code record} is set, when {@code stop} says so.
+     */
+    private List<Individual> evolve(List<Individual> population, AssignmentProblem problem, SplittableRandom random,
+                                    ForkJoinPool pool, int generations, StopCondition stop, boolean record) {
+        // Sort by cached fitness (lower cost is better)
+        population.sort(Comparator.comparingDouble(Individual::cost));
 
+        for (int gen = 0; gen < generations && !stop.expired(); gen++) {
+            population = nextGeneration(population, problem, random, pool);
+            population.sort(Comparator.comparingDouble(Individual::cost));
+
+            if (record && stop.record(population.get(0).cost(), 1)) break;
+        }
         return population;
     }
 
     /**
-     * Computes the cost of a full assignment (lower is better).
+     * Island model: evolves one population per island in parallel, migrating elites between epochs.
+     * Returns the best island's population sorted by cost.
      */
-    private double computeTotalCost(Map<Integer, String> assignment, Collection<Volunteer> volunteers) {
-        // Track how many are assigned to each service
-        Map<String, Integer> count = new HashMap<>();
-        for (String service : assignment.values()) {
-            count.put(service, count.getOrDefault(service, 0) + 1);
+    private List<Individual> evolveIslands(AssignmentProblem problem, SplittableRandom random, ForkJoinPool pool,
+                                           StopCondition stop, Individual seedIndividual) {
+        SplittableRandom[] streams = split(random, islands);
+        List<List<Individual>> populations = new ArrayList<>(Collections.nCopies(islands, null));
+
+        // Each island runs single-threaded; the pool parallelizes across islands
+        forEach(pool, islands, k -> {
+            List<Individual> population = generateInitialPopulation(problem, streams[k], null, seedIndividual);
+            population.sort(Comparator.comparingDouble(Individual::cost));
+            populations.set(k, population);
+        });
+
+        for (int gen = 0; gen < maxGenerations; gen += migrationInterval) {
+            int epoch = Math.min(migrationInterval, maxGenerations - gen);
+            forEach(pool, islands, k -> populations.set(k,
+                    evolve(populations.get(k), problem, streams[k], null, epoch, stop, false)));
+            migrate(populations);
+
+            if (stop.record(bestIsland(populations).get(0).cost(), epoch)) break;
         }
 
-        // Check for over-capacity (hard constraint)
-        for (Map.Entry<String, Integer> entry : count.entrySet()) {
-            if (entry.getValue() > serviceCapacities.getOrDefault(entry.getKey(), Integer.MAX_VALUE)) {
-                return Double.MAX_VALUE;
+        return bestIsland(populations);
+    }
+
+    /**
+     * Returns the island population holding the cheapest individual (populations are sorted by cost).
+     */
+    private static List<Individual> bestIsland(List<List<Individual>> populations) {
+        return Collections.min(populations, Comparator.comparingDouble(population -> population.get(0).cost()));
+    }
+
+    /**
+     * Copies each island's best individuals over the worst individuals of its neighbours.
+     * Populations must be sorted by cost and stay sorted afterwards.
+     */
+    private void migrate(List<List<Individual>> populations) {
+        int count = Math.min(migrants, populationSize / 2);
+        if (count == 0) return;
+
+        // Collect all emigrants first so every island sends what it had before this migration
+        List<List<Individual>> emigrants = new ArrayList<>();
+        for (List<Individual> population : populations) {
+            emigrants.add(new ArrayList<>(population.subList(0, count)));
+        }
+
+        for (int k = 0; k < populations.size(); k++) {
+            List<Individual> incoming = new ArrayList<>();
+            if (topology == MigrationTopology.RING) {
+                incoming.addAll(emigrants.get((k + populations.size() - 1) % populations.size()));
+            } else {
+                for (int other = 0; other < populations.size(); other++) {
+                    if (other != k) {
+                        incoming.addAll(emigrants.get(other));
+                    }
+                }
+                incoming.sort(Comparator.comparingDouble(Individual::cost));
+                incoming = incoming.subList(0, count);
+            }
+
+            // Immigrants replace the worst individuals
+            List<Individual> population = populations.get(k);
+            for (int i = 0; i < incoming.size(); i++) {
+                population.set(population.size() - 1 - i, incoming.get(i));
             }
+            population.sort(Comparator.comparingDouble(Individual::cost));
+        }
+    }
+
+    /**
+     * Builds the next generation from a population sorted by cost.
+     */
+    private List<Individual> nextGeneration(List<Individual> population, AssignmentProblem problem,
+                                            SplittableRandom random, ForkJoinPool pool) {
+        // Elitism: retain top 10%, and always the best, so a run never loses its best (feasible) individual
+        int eliteCount = Math.max(1, (int) (populationSize * 0.1));
+        List<Individual> nextGen = new ArrayList<>(population.subList(0, eliteCount));
+
+        // Fill rest of next generation with offspring, each bred from its own random stream
+        int offspringCount = populationSize - eliteCount;
+        SplittableRandom[] streams = split(random, offspringCount);
+        Individual[] offspring = new Individual[offspringCount];
+        forEach(pool, offspringCount, i -> {
+            Individual parent1 = select(population, streams[i]);
+            Individual parent2 = select(population, streams[i]);
+            Individual child = new Individual(crossover(parent1.genes(), parent2.genes(), streams[i]), problem);
+            mutate(child, problem, streams[i]);
+            offspring[i] = child;
+        });
+
+        nextGen.addAll(Arrays.asList(offspring));
+        return nextGen;
+    }
+
+    /**
+     * Generates initial population with random valid assignments.
+     * With a warm-start seed, the seed itself and perturbed copies of it fill the first half.
+     */
+    private List<Individual> generateInitialPopulation(AssignmentProblem problem, SplittableRandom random,
+                                                       ForkJoinPool pool, Individual seedIndividual) {
+        SplittableRandom[] streams = split(random, populationSize);
+        Individual[] population = new Individual[populationSize];
+        forEach(pool, populationSize, i -> {
+            if (seedIndividual == null || i >= populationSize / 2) {
+                population[i] = randomIndividual(problem, streams[i]);
+            } else if (i == 0) {
+                population[i] = seedIndividual;
+            } else {
+                population[i] = perturb(seedIndividual, problem, streams[i]);
+            }
+        });
+        return new ArrayList<>(Arrays.asList(population));
+    }
+
+    /**
+     * Builds the warm-start individual from the initial roster.
+     * Unchanged volunteers keep their previous service while it still has room; new, changed,
+     * previously unassigned and displaced volunteers are then placed in preference order.
+     */
+    private Individual warmStart(AssignmentProblem problem, Collection<Volunteer> volunteers) {
+        int[] genes = new int[problem.volunteerCount()];
+        int[] serviceLoad = new int[problem.serviceCount()];
+        List<Integer> pending = new ArrayList<>();
+
+        int v = 0;
+        for (Volunteer volunteer : volunteers) {
+            int s = problem.serviceIndex(initialRoster.previousService(volunteer));
+            if (s != AssignmentProblem.UNASSIGNED && serviceLoad[s] < problem.capacity(s)) {
+                genes[v] = s;
+                serviceLoad[s]++;
+            } else {
+                pending.add(v);
+            }
+            v++;
+        }
+
+        for (int p : pending) {
+            genes[p] = place(problem.preferences(p), serviceLoad, problem);
         }
+        return new Individual(genes, problem);
+    }
 
-        // Sum up dissatisfaction cost
-        double total = 0;
-        for (Volunteer v : volunteers) {
-            String assigned = assignment.get(v.getId());
-            total += calculateCost(v, assigned);
+    /**
+     * Copy of {@code seedIndividual} with a few random reassignments, to give a seeded population some diversity.
+     */
+    private Individual perturb(Individual seedIndividual, AssignmentProblem problem, SplittableRandom random) {
+        Individual copy = new Individual(seedIndividual);
+        int moves = 1 + random.nextInt(Math.max(1, problem.volunteerCount() / 20));
+        for (int i = 0; i < moves; i++) {
+            moveRandomGene(copy, problem, random);
+        }
+        return copy;
+    }
+
+    /**
+     * Builds one random individual that fills preferred services first while respecting capacities.
+     */
+    private Individual randomIndividual(AssignmentProblem problem, SplittableRandom random) {
+        int n = problem.volunteerCount();
+        int[] genes = new int[n];
+        int[] serviceLoad = new int[problem.serviceCount()];
+
+        for (int v = 0; v < n; v++) {
+            int[] prefs = problem.preferences(v).clone();
+            shuffle(prefs, random); // Randomize preference order
+            genes[v] = place(prefs, serviceLoad, problem);
         }
 
-        return total;
+        return new Individual(genes, problem);
     }
 
     /**
-     * Calculates dissatisfaction cost for a single volunteer assignment.
+     * Picks the first service in {@code prefs} with room, falling back to any configured service with room,
+     * and counts it in {@code serviceLoad}. Returns {@link AssignmentProblem#UNASSIGNED} if everything is full.
      */
-    private double calculateCost(Volunteer v, String service) {
-        List<Preference> prefs = v.getPreferences();
-        for (int i = 0; i < prefs.size(); i++) {
-            if (prefs.get(i).getServiceName().equals(service)) {
-                return Math.pow(i, 2); // Quadratic penalty for lower-ranked preferences
+    private static int place(int[] prefs, int[] serviceLoad, AssignmentProblem problem) {
+        int chosen = AssignmentProblem.UNASSIGNED;
+        for (int s : prefs) {
+            if (serviceLoad[s] < problem.capacity(s)) {
+                chosen = s;
+                break;
             }
         }
 
-        // Heavy penalty if the service isn't in the preference list
-        int Nd = prefs.size();
-        return 10 * Nd * Nd;
+        // Fallback if all preferences are full
+        if (chosen == AssignmentProblem.UNASSIGNED) {
+            for (int s = 0; s < problem.catalogSize(); s++) {
+                if (serviceLoad[s] < problem.capacity(s)) {
+                    chosen = s;
+                    break;
+                }
+            }
+        }
+
+        if (chosen != AssignmentProblem.UNASSIGNED) {
+            serviceLoad[chosen]++;
+        }
+        return chosen;
     }
 
     /**
      * Produces a new child assignment by combining two parents.
      */
-    private Map<Integer, String> crossover(Map<Integer, String> p1, Map<Integer, String> p2) {
-        Map<Integer, String> child = new HashMap<>();
-        for (Integer id : p1.keySet()) {
-            child.put(id, Math.random() < 0.5 ? p1.get(id) : p2.get(id));
+    private int[] crossover(int[] p1, int[] p2, SplittableRandom random) {
+        int[] child = new int[p1.length];
+        for (int v = 0; v < child.length; v++) {
+            child[v] = random.nextBoolean() ? p1[v] : p2[v];
         }
         return child;
     }
@@ -160,63 +450,90 @@ public class GeneticOptimizer {
     /**
      * Randomly mutate a single assignment.
      */
-    private void mutate(Map<Integer, String> assignment) {
-        if (Math.random() > mutationRate) return;
+    private void mutate(Individual individual, AssignmentProblem problem, SplittableRandom random) {
+        if (random.nextDouble() > mutationRate) return;
+        moveRandomGene(individual, problem, random);
+    }
 
-        List<Integer> ids = new ArrayList<>(assignment.keySet());
-        int index = new Random().nextInt(ids.size());
-        int volId = ids.get(index);
+    /**
+     * Moves a random volunteer to a random service that still has room.
+     * Uses the individual's tracked service loads, so the cost is independent of volunteer count.
+     */
+    private void moveRandomGene(Individual individual, AssignmentProblem problem, SplittableRandom random) {
+        if (problem.volunteerCount() == 0) return;
 
-        // Calculate current usage
-        Map<String, Integer> currentLoad = new HashMap<>();
-        for (String service : assignment.values()) {
-            currentLoad.put(service, currentLoad.getOrDefault(service, 0) + 1);
-        }
+        int v = random.nextInt(problem.volunteerCount());
 
         // Find services that still have capacity
-        List<String> candidates = new ArrayList<>();
-        for (String service : serviceCapacities.keySet()) {
-            if (currentLoad.getOrDefault(service, 0) < serviceCapacities.get(service)) {
-                candidates.add(service);
+        int[] candidates = new int[problem.catalogSize()];
+        int candidateCount = 0;
+        for (int s = 0; s < problem.catalogSize(); s++) {
+            if (individual.load(s) < problem.capacity(s)) {
+                candidates[candidateCount++] = s;
             }
         }
 
-        if (!candidates.isEmpty()) {
-            String newService = candidates.get(new Random().nextInt(candidates.size()));
-            assignment.put(volId, newService); // Mutate the assignment
+        if (candidateCount > 0) {
+            individual.move(v, candidates[random.nextInt(candidateCount)], problem); // Mutate the assignment
         }
     }
 
     /**
      * Selects a parent from the population using tournament selection.
      */
-    private Map<Integer, String> select(List<Map<Integer, String>> population, Collection<Volunteer> volunteers) {
+    private Individual select(List<Individual> population, SplittableRandom random) {
         // Tournament: pick two and keep the better one
-        int i = new Random().nextInt(population.size());
-        int j = new Random().nextInt(population.size());
+        Individual a = population.get(random.nextInt(population.size()));
+        Individual b = population.get(random.nextInt(population.size()));
+
+        return a.cost() < b.cost() ? a : b;
+    }
 
-        // Create mapping of volunteer IDs to Volunteer objects for cost calculation
-        Map<Integer, Volunteer> volunteerMap = new HashMap<>();
-        for (Volunteer v : volunteers) {
-            volunteerMap.put(v.getId(), v);
+    /**
+     * Converts an internal chromosome to a list of Assignment objects.
+     */
+    private List<Assignment> toAssignmentList(int[] genes, AssignmentProblem problem) {
+        List<Assignment> result = new ArrayList<>(genes.length);
+        for (int v = 0; v < genes.length; v++) {
+            double cost = problem.cost(v, genes[v]);
+            result.add(new Assignment(problem.volunteerId(v), problem.serviceName(genes[v]), cost));
         }
+        return result;
+    }
 
-        double costI = computeTotalCost(population.get(i), volunteerMap.values());
-        double costJ = computeTotalCost(population.get(j), volunteerMap.values());
+    /**
+     * Splits one independent random stream per task, in a fixed order so results do not depend on scheduling.
+     */
+    private static SplittableRandom[] split(SplittableRandom random, int count) {
+        SplittableRandom[] streams = new SplittableRandom[count];
+        for (int i = 0; i < count; i++) {
+            streams[i] = random.split();
+        }
+        return streams;
+    }
 
-        return costI < costJ ? population.get(i) : population.get(j);
+    /**
+     * Runs {@code task} for every index in {@code [0, count)}, on the pool if there is one.
+     */
+    private static void forEach(ForkJoinPool pool, int count, IntConsumer task) {
+        if (pool == null) {
+            for (int i = 0; i < count; i++) {
+                task.accept(i);
+            }
+        } else {
+            pool.submit(() -> IntStream.range(0, count).parallel().forEach(task)).join();
+        }
     }
 
     /**
-     * Converts an internal assignment map to a list of Assignment objects.
+     * Fisher-Yates shuffle of an index array.
      */
-    private List<Assignment> toAssignmentList(Map<Integer, String> map, Collection<Volunteer> volunteers) {
-        List<Assignment> result = new ArrayList<>();
-        for (Volunteer v : volunteers) {
-            String s = map.get(v.getId());
-            double cost = calculateCost(v, s);
-            result.add(new Assignment(v.getId(), s, cost));
+    private static void shuffle(int[] values, SplittableRandom random) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
         }
-        return result;
     }
 }
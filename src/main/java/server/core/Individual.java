@@ -0,0 +1,79 @@
+package server.core;
+
+/**
+ * One candidate solution of the genetic algorithm together with its cached fitness.
+ * Service loads and total cost are computed once when the individual is built and then
+ * kept up to date by {@link #move}, so a single-gene change costs O(1) instead of a full re-evaluation.
+ */
+final class Individual {
+    private final int[] genes;   // Service index per volunteer index
+    private final int[] load;    // Volunteers currently assigned per service index
+    private long totalCost;      // Sum of dissatisfaction over all volunteers
+    private int overloaded;      // Number of services above capacity
+
+    Individual(int[] genes, AssignmentProblem problem) {
+        this.genes = genes;
+        this.load = new int[problem.serviceCount()];
+
+        for (int v = 0; v < genes.length; v++) {
+            int s = genes[v];
+            if (s != AssignmentProblem.UNASSIGNED) {
+                load[s]++;
+            }
+            totalCost += problem.cost(v, s);
+        }
+
+        // Check for over-capacity (hard constraint)
+        for (int s = 0; s < load.length; s++) {
+            if (load[s] > problem.capacity(s)) {
+                overloaded++;
+            }
+        }
+    }
+
+    /**
+     * Copy constructor, used when an individual must be changed without touching the original.
+     */
+    Individual(Individual other) {
+        this.genes = other.genes.clone();
+        this.load = other.load.clone();
+        this.totalCost = other.totalCost;
+        this.overloaded = other.overloaded;
+    }
+
+    int[] genes() {
+        return genes;
+    }
+
+    int gene(int v) {
+        return genes[v];
+    }
+
+    int load(int s) {
+        return load[s];
+    }
+
+    /**
+     * Cached cost of this individual (lower is better), or {@code Double.MAX_VALUE} if any service is over capacity.
+     */
+    double cost() {
+        return overloaded > 0 ? Double.MAX_VALUE : totalCost;
+    }
+
+    /**
+     * Reassigns volunteer {@code v} to service {@code s}, updating load and cost incrementally.
+     */
+    void move(int v, int s, AssignmentProblem problem) {
+        int old = genes[v];
+        if (old == s) return;
+
+        totalCost += problem.cost(v, s) - problem.cost(v, old);
+        if (old != AssignmentProblem.UNASSIGNED && load[old]-- == problem.capacity(old) + 1) {
+            overloaded--;
+        }
+        if (s != AssignmentProblem.UNASSIGNED && ++load[s] == problem.capacity(s) + 1) {
+            overloaded++;
+        }
+        genes[v] = s;
+    }
+}
@@ -0,0 +1,115 @@
+package server.core;
+
+import java.util.Arrays;
+
+/**
+ * Hill-climbing refinement of a single individual.
+ * <p>
+ * Two neighbourhoods are applied until neither finds an improving step (a local optimum):
+ * <ul>
+ *     <li>move: put a volunteer on a cheaper service that still has room (first improvement);</li>
+ *     <li>swap: exchange two volunteers between two services when that lowers the total cost.</li>
+ * </ul>
+ * All steps are evaluated from cost-table deltas and applied with {@link Individual#move}, so no
+ * full re-evaluation is ever needed. Being unassigned is treated as one more "service" without a
+ * capacity limit, so unassigned volunteers can swap into full services.
+ */
+final class LocalSearch {
+    private final AssignmentProblem problem;
+    private final int nodes;         // Services plus one node for "unassigned"
+
+    LocalSearch(AssignmentProblem problem) {
+        this.problem = problem;
+        this.nodes = problem.serviceCount() + 1;
+    }
+
+    /**
+     * Improves {@code individual} in place until it is a local optimum or {@code maxPasses} passes ran.
+     *
+     * @return total cost reduction achieved
+     */
+    long improve(Individual individual, int maxPasses) {
+        long gained = 0;
+        for (int pass = 0; pass < maxPasses; pass++) {
+            long step = movePass(individual) + swapPass(individual);
+            if (step == 0) break;
+            gained += step;
+        }
+        return gained;
+    }
+
+    /**
+     * Moves each volunteer to the first cheaper service with room.
+     */
+    private long movePass(Individual individual) {
+        long gained = 0;
+        for (int v = 0; v < problem.volunteerCount(); v++) {
+            int current = individual.gene(v);
+            int currentCost = problem.cost(v, current);
+            if (currentCost == 0) continue;
+
+            for (int s = 0; s < problem.serviceCount(); s++) {
+                if (s != current && individual.load(s) < problem.capacity(s) && problem.cost(v, s) < currentCost) {
+                    gained += currentCost - problem.cost(v, s);
+                    individual.move(v, s, problem);
+                    break;
+                }
+            }
+        }
+        return gained;
+    }
+
+    /**
+     * For every pair of services, swaps the two volunteers whose exchange saves the most,
+     * as long as it saves anything. A volunteer takes part in at most one swap per pass.
+     */
+    private long swapPass(Individual individual) {
+        // bestDelta[a][b]: smallest cost change of moving one volunteer from node a to node b
+        int[][] bestDelta = new int[nodes][nodes];
+        int[][] bestVolunteer = new int[nodes][nodes];
+        for (int a = 0; a < nodes; a++) {
+            Arrays.fill(bestDelta[a], Integer.MAX_VALUE);
+        }
+
+        for (int v = 0; v < problem.volunteerCount(); v++) {
+            int a = node(individual.gene(v));
+            int here = problem.cost(v, individual.gene(v));
+            for (int b = 0; b < nodes; b++) {
+                if (b == a) continue;
+                int delta = problem.cost(v, service(b)) - here;
+                if (delta < bestDelta[a][b]) {
+                    bestDelta[a][b] = delta;
+                    bestVolunteer[a][b] = v;
+                }
+            }
+        }
+
+        long gained = 0;
+        boolean[] moved = new boolean[problem.volunteerCount()];
+        for (int a = 0; a < nodes; a++) {
+            for (int b = a + 1; b < nodes; b++) {
+                if (bestDelta[a][b] == Integer.MAX_VALUE || bestDelta[b][a] == Integer.MAX_VALUE) continue;
+
+                long delta = (long) bestDelta[a][b] + bestDelta[b][a];
+                int u = bestVolunteer[a][b];
+                int w = bestVolunteer[b][a];
+                if (delta < 0 && !moved[u] && !moved[w]) {
+                    individual.move(u, service(b), problem);
+                    individual.move(w, service(a), problem);
+                    moved[u] = true;
+                    moved[w] = true;
+                    gained -= delta;
+                }
+            }
+        }
+        return gained;
+    }
+
+    private int node(int service) {
+        return service == AssignmentProblem.UNASSIGNED ? nodes - 1 : service;
+    }
+
+    private int service(int node) {
+        return node == nodes - 1 ? AssignmentProblem.UNASSIGNED : node;
+    }
+}
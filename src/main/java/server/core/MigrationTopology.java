@@ -0,0 +1,11 @@
+package server.core;
+
+/**
+ * Defines which islands exchange individuals in the island-model genetic algorithm.
+ */
+public enum MigrationTopology {
+    /** Island {@code k} sends its best individuals to island {@code k + 1} (wrapping around). */
+    RING,
+    /** Every island receives the best individuals found on all other islands. */
+    FULL
+}
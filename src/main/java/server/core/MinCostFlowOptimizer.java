@@ -0,0 +1,236 @@
+package server.core;
+
+import model.Assignment;
+import model.Volunteer;
+
+import java.util.*;
+
+/**
+ * Solves the volunteer assignment exactly as a min-cost flow (transportation) problem.
+ * <p>
+ * Volunteers are added one at a time and routed along a shortest augmenting path in the residual
+ * graph, which keeps the partial assignment optimal after every step. Because there are only a few
+ * services, paths are searched on a compressed graph whose nodes are services: an edge a -> b means
+ * "move the cheapest volunteer currently in a over to b", and its weight is that volunteer's cost change.
+ * The cheapest candidate per edge is kept in a heap, so each step costs O(S^3 + S log n) for S services.
+ * <p>
+ * Volunteers that do not fit anywhere go to a virtual "unassigned" node with the same cost as an
+ * unlisted service, matching the cost rule used by {@link GeneticOptimizer}.
+ */
+public class MinCostFlowOptimizer implements AssignmentOptimizer {
+    private final Map<String, Integer> serviceCapacities; // Max volunteers per service
+
+    public MinCostFlowOptimizer(Map<String, Integer> serviceCapacities) {
+        this.serviceCapacities = serviceCapacities;
+    }
+
+    /**
+     * Entry point for optimization process.
+     */
+    @Override
+    public List<Assignment> optimize(Collection<Volunteer> volunteers) {
+        AssignmentProblem problem = new AssignmentProblem(serviceCapacities, volunteers);
+        int[] genes = solve(problem);
+
+        List<Assignment> result = new ArrayList<>(genes.length);
+        for (int v = 0; v < genes.length; v++) {
+            result.add(new Assignment(problem.volunteerId(v), problem.serviceName(genes[v]), problem.cost(v, genes[v])));
+        }
+        return result;
+    }
+
+    /**
+     * Computes an optimal service index per volunteer index.
+     */
+    int[] solve(AssignmentProblem problem) {
+        int n = problem.volunteerCount();
+        int services = problem.serviceCount();
+        int nodes = services + 1;          // Node `services` is the virtual unassigned node
+        int unassigned = services;
+
+        int[] capacity = new int[nodes];
+        for (int s = 0; s < services; s++) {
+            capacity[s] = problem.capacity(s);
+        }
+        capacity[unassigned] = n;
+
+        int[] node = new int[n];           // Current node per volunteer
+        int[] load = new int[nodes];
+        Arrays.fill(node, -1);
+
+        // heaps[a][b] holds volunteers (lazily) in node a keyed by the cost change of moving them to b
+        LongHeap[][] heaps = new LongHeap[nodes][nodes];
+        for (int a = 0; a < nodes; a++) {
+            for (int b = 0; b < nodes; b++) {
+                if (a != b) {
+                    heaps[a][b] = new LongHeap();
+                }
+            }
+        }
+
+        long[] dist = new long[nodes];
+        int[] predNode = new int[nodes];
+        int[] predVolunteer = new int[nodes];
+
+        for (int v = 0; v < n; v++) {
+            // Shortcut: a free node that is also the cheapest one cannot be beaten by any reassignment chain
+            int cheapest = 0;
+            for (int b = 1; b < nodes; b++) {
+                if (weight(problem, v, b, unassigned) < weight(problem, v, cheapest, unassigned)) {
+                    cheapest = b;
+                }
+            }
+            if (load[cheapest] < capacity[cheapest]) {
+                place(problem, v, cheapest, node, heaps, unassigned);
+                load[cheapest]++;
+                continue;
+            }
+
+            // Bellman-Ford over the compressed service graph (weights may be negative, cycles are not)
+            for (int b = 0; b < nodes; b++) {
+                dist[b] = weight(problem, v, b, unassigned);
+                predNode[b] = -1;
+                predVolunteer[b] = -1;
+            }
+            boolean changed = true;
+            for (int round = 0; round < nodes && changed; round++) {
+                changed = false;
+                for (int a = 0; a < nodes; a++) {
+                    for (int b = 0; b < nodes; b++) {
+                        if (a == b) continue;
+                        long top = peekValid(heaps[a][b], node, a);
+                        if (top == Long.MIN_VALUE) continue;
+                        long candidate = dist[a] + (top >> 32);
+                        if (candidate < dist[b]) {
+                            dist[b] = candidate;
+                            predNode[b] = a;
+                            predVolunteer[b] = (int) top;
+                            changed = true;
+                        }
+                    }
+                }
+            }
+
+            // End at the cheapest node that still has room (the unassigned node always does)
+            int target = -1;
+            for (int b = 0; b < nodes; b++) {
+                if (load[b] < capacity[b] && (target == -1 || dist[b] < dist[target])) {
+                    target = b;
+                }
+            }
+
+            // Walk back along the path, shifting each displaced volunteer one node forward
+            int current = target;
+            while (predNode[current] != -1) {
+                int moved = predVolunteer[current];
+                int from = predNode[current];
+                place(problem, moved, current, node, heaps, unassigned);
+                current = from;
+            }
+            place(problem, v, current, node, heaps, unassigned);
+            load[target]++;
+        }
+
+        // Leftover unassigned volunteers may take any free service at no extra cost
+        int s = 0;
+        for (int v = 0; v < n; v++) {
+            if (node[v] != unassigned) continue;
+            while (s < services && load[s] >= capacity[s]) {
+                s++;
+            }
+            if (s == services) break;
+            node[v] = s;
+            load[s]++;
+            load[unassigned]--;
+        }
+
+        int[] genes = new int[n];
+        for (int v = 0; v < n; v++) {
+            genes[v] = node[v] == unassigned ? AssignmentProblem.UNASSIGNED : node[v];
+        }
+        return genes;
+    }
+
+    /**
+     * Cost of placing volunteer {@code v} on flow node {@code b}.
+     */
+    private static long weight(AssignmentProblem problem, int v, int b, int unassigned) {
+        return problem.cost(v, b == unassigned ? AssignmentProblem.UNASSIGNED : b);
+    }
+
+    /**
+     * Puts volunteer {@code v} on node {@code b} and registers its outgoing moves.
+     */
+    private static void place(AssignmentProblem problem, int v, int b, int[] node, LongHeap[][] heaps, int unassigned) {
+        node[v] = b;
+        long here = weight(problem, v, b, unassigned);
+        for (int other = 0; other < heaps.length; other++) {
+            if (other != b) {
+                long delta = weight(problem, v, other, unassigned) - here;
+                heaps[b][other].push((delta << 32) | v);
+            }
+        }
+    }
+
+    /**
+     * Returns the heap's smallest entry whose volunteer is still in {@code a}, or {@code Long.MIN_VALUE} if none.
+     * Entries of volunteers that have moved away are discarded on the way.
+     */
+    private static long peekValid(LongHeap heap, int[] node, int a) {
+        while (!heap.isEmpty()) {
+            long top = heap.peek();
+            if (node[(int) top] == a) {
+                return top;
+            }
+            heap.pop();
+        }
+        return Long.MIN_VALUE;
+    }
+
+    /**
+     * Minimal binary min-heap of primitive longs.
+     * Entries pack a signed cost delta in the high 32 bits and a volunteer index in the low 32 bits.
+     */
+    private static final class LongHeap {
+        private long[] items = new long[8];
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        long peek() {
+            return items[0];
+        }
+
+        void push(long item) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (items[parent] <= item) break;
+                items[i] = items[parent];
+                i = parent;
+            }
+            items[i] = item;
+        }
+
+        void pop() {
+            long last = items[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && items[child + 1] < items[child]) {
+                    child++;
+                }
+                if (items[child] >= last) break;
+                items[i] = items[child];
+                i = child;
+            }
+            items[i] = last;
+        }
+    }
+}
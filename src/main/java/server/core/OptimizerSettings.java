@@ -0,0 +1,188 @@
+package server.core;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Engine choice and tuning for one optimization run.
+ * Fields left {@code null} keep the engine's own default. Instances are plain data so they can be
+ * filled from query parameters or deserialized from a JSON request body.
+ */
+public class OptimizerSettings {
+    // Upper limits for values taken from requests; the engines themselves check the lower limits
+    static final int MAX_THREADS = 256;            // Far above useful parallelism, well below ForkJoinPool's limit
+    static final int MAX_POPULATION = 10_000;      // Individuals over all islands together
+    static final int MAX_ISLANDS = 64;
+    static final int MAX_GENERATIONS = 1_000_000;
+    static final int MAX_LOCAL_SEARCH_PASSES = 10_000;
+    static final long MAX_TIME_BUDGET_MILLIS = 3_600_000; // One hour; runs are queued one at a time
+
+    private String engine = "ga";          // "ga" (genetic algorithm) or "flow" (exact min-cost flow)
+    private Integer generations;           // GA: number of generations
+    private Integer population;            // GA: population size (per island)
+    private Double mutationRate;           // GA: probability of mutating a child
+    private Long seed;                     // GA: random seed for reproducible runs
+    private Integer threads;               // GA: worker threads, one per core if not set
+    private Integer islands;               // GA: number of islands (1 = single population)
+    private Integer migrationInterval;     // GA: generations between migrations
+    private Integer migrants;              // GA: individuals sent per migration
+    private MigrationTopology topology;    // GA: which islands exchange individuals
+    private Long timeBudgetMillis;         // GA: wall-clock budget in milliseconds
+    private Integer stallGenerations;      // GA: stop after this many generations without improvement
+    private Double targetCost;             // GA: stop once this cost is reached
+    private Integer localSearchPasses;     // GA: local-search passes on the result, 0 = off
+    private boolean warmStart;             // Seed the run from the last published roster
+
+    public String getEngine() {
+        return engine;
+    }
+
+    public void setEngine(String engine) {
+        this.engine = engine;
+    }
+
+    public void setGenerations(Integer generations) {
+        this.generations = generations;
+    }
+
+    public void setPopulation(Integer population) {
+        this.population = population;
+    }
+
+    public void setMutationRate(Double mutationRate) {
+        this.mutationRate = mutationRate;
+    }
+
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+
+    public Integer getThreads() {
+        return threads;
+    }
+
+    public void setThreads(Integer threads) {
+        this.threads = threads;
+    }
+
+    public void setIslands(Integer islands) {
+        this.islands = islands;
+    }
+
+    public void setMigrationInterval(Integer migrationInterval) {
+        this.migrationInterval = migrationInterval;
+    }
+
+    public void setMigrants(Integer migrants) {
+        this.migrants = migrants;
+    }
+
+    public void setTopology(MigrationTopology topology) {
+        this.topology = topology;
+    }
+
+    public void setTimeBudgetMillis(Long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    public void setStallGenerations(Integer stallGenerations) {
+        this.stallGenerations = stallGenerations;
+    }
+
+    public void setTargetCost(Double targetCost) {
+        this.targetCost = targetCost;
+    }
+
+    public void setLocalSearchPasses(Integer localSearchPasses) {
+        this.localSearchPasses = localSearchPasses;
+    }
+
+    public boolean isWarmStart() {
+        return warmStart;
+    }
+
+    public void setWarmStart(boolean warmStart) {
+        this.warmStart = warmStart;
+    }
+
+    /**
+     * Builds the configured engine.
+     *
+     * @param serviceCapacities max volunteers per service
+     * @return a ready-to-run optimizer
+     * @throws IllegalArgumentException if the engine is unknown or a tuning value is out of range
+     */
+    public AssignmentOptimizer createOptimizer(Map<String, Integer> serviceCapacities) {
+        String name = engine == null ? "ga" : engine;
+        switch (name) {
+            case "flow":
+                return new MinCostFlowOptimizer(serviceCapacities);
+            case "ga":
+                requireAtMost(threads, MAX_THREADS, "threads");
+                requireAtMost(islands, MAX_ISLANDS, "islands");
+                if (population != null && (long) population * (islands == null ? 1 : islands) > MAX_POPULATION) {
+                    throw new IllegalArgumentException("population times islands must be at most " + MAX_POPULATION);
+                }
+                requireAtMost(generations, MAX_GENERATIONS, "generations");
+                requireAtMost(localSearchPasses, MAX_LOCAL_SEARCH_PASSES, "localSearchPasses");
+                if (timeBudgetMillis != null && timeBudgetMillis > MAX_TIME_BUDGET_MILLIS) {
+                    throw new IllegalArgumentException("timeBudgetMillis must be at most " + MAX_TIME_BUDGET_MILLIS);
+                }
+                GeneticOptimizer ga = new GeneticOptimizer(serviceCapacities);
+                if (generations != null) ga.setMaxGenerations(generations);
+                if (population != null) ga.setPopulationSize(population);
+                if (mutationRate != null) ga.setMutationRate(mutationRate);
+                if (seed != null) ga.setSeed(seed);
+                ga.setThreads(threads != null ? threads : Runtime.getRuntime().availableProcessors()); // Default not stored: settings are a job key
+                if (islands != null) ga.setIslands(islands);
+                if (migrationInterval != null) ga.setMigrationInterval(migrationInterval);
+                if (migrants != null) ga.setMigrants(migrants);
+                if (topology != null) ga.setMigrationTopology(topology);
+                if (timeBudgetMillis != null) ga.setTimeBudgetMillis(timeBudgetMillis);
+                if (stallGenerations != null) ga.setStallGenerations(stallGenerations);
+                if (targetCost != null) ga.setTargetCost(targetCost);
+                if (localSearchPasses != null) ga.setLocalSearchPasses(localSearchPasses);
+                return ga;
+            default:
+                throw new IllegalArgumentException("Unknown engine: " + name);
+        }
+    }
+
+    private static void requireAtMost(Integer value, int max, String name) {
+        if (value != null && value > max) {
+            throw new IllegalArgumentException(name + " must be at most " + max);
+        }
+    }
+
+    /**
+     * Settings are equal when every field is; equal requests can share one run.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof OptimizerSettings)) return false;
+        OptimizerSettings other = (OptimizerSettings) o;
+        return warmStart == other.warmStart
+                && Objects.equals(engine, other.engine)
+                && Objects.equals(generations, other.generations)
+                && Objects.equals(population, other.population)
+                && Objects.equals(mutationRate, other.mutationRate)
+                && Objects.equals(seed, other.seed)
+                && Objects.equals(threads, other.threads)
+                && Objects.equals(islands, other.islands)
+                && Objects.equals(migrationInterval, other.migrationInterval)
+                && Objects.equals(migrants, other.migrants)
+                && topology == other.topology
+                && Objects.equals(timeBudgetMillis, other.timeBudgetMillis)
+                && Objects.equals(stallGenerations, other.stallGenerations)
+                && Objects.equals(targetCost, other.targetCost)
+                && Objects.equals(localSearchPasses, other.localSearchPasses);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(engine, generations, population, mutationRate, seed, threads, islands,
+                migrationInterval, migrants, topology, timeBudgetMillis, stallGenerations, targetCost,
+                localSearchPasses, warmStart);
+    }
+}
@@ -0,0 +1,161 @@
+package server.core;
+
+import java.util.function.Consumer;
+
+/**
+ * Immutable map from int keys to values, implemented as a hash array mapped trie.
+ * {@link #put} and {@link #remove} return a new map that shares all untouched nodes with the old one, so an update
+ * copies only the O(log32 n) nodes on one path and existing maps can be handed out as snapshots.
+ *
+ * @param <V> value type
+ */
+final class PersistentIntMap<V> {
+    private static final int BITS = 5;               // Key bits consumed per trie level
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final PersistentIntMap<?> EMPTY = new PersistentIntMap<>(new Node(0, new Object[0]), 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentIntMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> PersistentIntMap<V> empty() {
+        return (PersistentIntMap<V>) EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the value for {@code key}, or null if absent
+     */
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        Node node = root;
+        for (int shift = 0; ; shift += BITS) {
+            int bit = 1 << ((key >>> shift) & MASK);
+            if ((node.bitmap & bit) == 0) return null;
+
+            Object slot = node.slots[Integer.bitCount(node.bitmap & (bit - 1))];
+            if (slot instanceof Leaf) {
+                Leaf leaf = (Leaf) slot;
+                return leaf.key == key ? (V) leaf.value : null;
+            }
+            node = (Node) slot;
+        }
+    }
+
+    /**
+     * @return a map equal to this one except that {@code key} maps to {@code value}
+     */
+    PersistentIntMap<V> put(int key, V value) {
+        boolean added = get(key) == null;
+        return new PersistentIntMap<>(put(root, 0, new Leaf(key, value)), added ? size + 1 : size);
+    }
+
+    /**
+     * @return a map equal to this one except that {@code key} is absent
+     */
+    PersistentIntMap<V> remove(int key) {
+        if (get(key) == null) return this;
+        return new PersistentIntMap<>(remove(root, 0, key), size - 1);
+    }
+
+    /**
+     * Calls {@code action} for every value, in key-bit order.
+     */
+    @SuppressWarnings("unchecked")
+    void forEachValue(Consumer<? super V> action) {
+        forEach(root, leaf -> action.accept((V) leaf.value));
+    }
+
+    private static Node put(Node node, int shift, Leaf leaf) {
+        int bit = 1 << ((leaf.key >>> shift) & MASK);
+        int index = Integer.bitCount(node.bitmap & (bit - 1));
+
+        if ((node.bitmap & bit) == 0) {
+            // Free slot: insert the leaf
+            Object[] slots = new Object[node.slots.length + 1];
+            System.arraycopy(node.slots, 0, slots, 0, index);
+            slots[index] = leaf;
+            System.arraycopy(node.slots, index, slots, index + 1, node.slots.length - index);
+            return new Node(node.bitmap | bit, slots);
+        }
+
+        Object slot = node.slots[index];
+        Object replacement;
+        if (slot instanceof Node) {
+            replacement = put((Node) slot, shift + BITS, leaf);
+        } else if (((Leaf) slot).key == leaf.key) {
+            replacement = leaf;
+        } else {
+            // Two keys share this slot: push both one level down
+            Node child = put(new Node(0, new Object[0]), shift + BITS, (Leaf) slot);
+            replacement = put(child, shift + BITS, leaf);
+        }
+
+        Object[] slots = node.slots.clone();
+        slots[index] = replacement;
+        return new Node(node.bitmap, slots);
+    }
+
+    /**
+     * Removes {@code key}, which must be present below {@code node}.
+     */
+    private static Node remove(Node node, int shift, int key) {
+        int bit = 1 << ((key >>> shift) & MASK);
+        int index = Integer.bitCount(node.bitmap & (bit - 1));
+
+        Object slot = node.slots[index];
+        if (slot instanceof Node) {
+            Node child = remove((Node) slot, shift + BITS, key);
+            // A child left with one leaf is replaced by that leaf, so lookups stay as short as after a put
+            Object replacement = child.slots.length == 1 && child.slots[0] instanceof Leaf ? child.slots[0] : child;
+            Object[] slots = node.slots.clone();
+            slots[index] = replacement;
+            return new Node(node.bitmap, slots);
+        }
+
+        // The leaf itself: drop its slot
+        Object[] slots = new Object[node.slots.length - 1];
+        System.arraycopy(node.slots, 0, slots, 0, index);
+        System.arraycopy(node.slots, index + 1, slots, index, slots.length - index);
+        return new Node(node.bitmap & ~bit, slots);
+    }
+
+    private static void forEach(Node node, Consumer<Leaf> action) {
+        for (Object slot : node.slots) {
+            if (slot instanceof Leaf) {
+                action.accept((Leaf) slot);
+            } else {
+                forEach((Node) slot, action);
+            }
+        }
+    }
+
+    private static final class Node {
+        final int bitmap;       // Which of the 32 slots are present
+        final Object[] slots;   // Present slots in bit order, each a Node or a Leaf
+
+        Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+    }
+
+    private static final class Leaf {
+        final int key;
+        final Object value;
+
+        Leaf(int key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package server.core;
+
+import model.Volunteer;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable, versioned view of all stored preferences at one point in time.
+ * Taking a snapshot is O(1); later writes to the {@link PreferenceStore} never change it.
+ * Data is held as {@link CompactVolunteer} records; {@link Volunteer} objects are created on access.
+ */
+public class PreferenceSnapshot {
+    private final long version;                                // Store version this snapshot reflects
+    private final PersistentIntMap<CompactVolunteer> volunteers; // Volunteer ID -> volunteer
+    private final ServiceRegistry registry;                    // Resolves service IDs in the records
+    private volatile CompactVolunteer[] records;               // Flattened on first use
+
+    PreferenceSnapshot(long version, PersistentIntMap<CompactVolunteer> volunteers, ServiceRegistry registry) {
+        this.version = version;
+        this.volunteers = volunteers;
+        this.registry = registry;
+    }
+
+    /**
+     * Monotonically increasing store version; every write produces a new version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return volunteers.size();
+    }
+
+    /**
+     * @return the volunteer with this ID, or null
+     */
+    public Volunteer getVolunteer(int id) {
+        CompactVolunteer record = volunteers.get(id);
+        return record == null ? null : record.toVolunteer(registry);
+    }
+
+    /**
+     * All volunteers of this snapshot as an unmodifiable list with a stable iteration order.
+     * Elements are converted on every access and not retained, so iterate once where possible.
+     */
+    public List<Volunteer> getVolunteers() {
+        return new VolunteerView(records(), registry);
+    }
+
+    /**
+     * The stored records themselves, in the same order as {@link #getVolunteers()}.
+     */
+    public List<CompactVolunteer> getCompactVolunteers() {
+        return Collections.unmodifiableList(Arrays.asList(records()));
+    }
+
+    /**
+     * Registry resolving the service IDs of {@link #getCompactVolunteers()}.
+     */
+    public ServiceRegistry getRegistry() {
+        return registry;
+    }
+
+    PersistentIntMap<CompactVolunteer> map() {
+        return volunteers;
+    }
+
+    CompactVolunteer getRecord(int id) {
+        return volunteers.get(id);
+    }
+
+    private CompactVolunteer[] records() {
+        CompactVolunteer[] result = records;
+        if (result == null) {
+            CompactVolunteer[] all = new CompactVolunteer[volunteers.size()];
+            int[] next = {0};
+            volunteers.forEachValue(v -> all[next[0]++] = v);
+            result = all;
+            records = result;
+        }
+        return result;
+    }
+
+    /**
+     * Read-only list that unpacks each record when it is read.
+     */
+    private static final class VolunteerView extends AbstractList<Volunteer> implements RandomAccess {
+        private final CompactVolunteer[] records;
+        private final ServiceRegistry registry;
+
+        VolunteerView(CompactVolunteer[] records, ServiceRegistry registry) {
+            this.records = records;
+            this.registry = registry;
+        }
+
+        @Override
+        public Volunteer get(int index) {
+            return records[index].toVolunteer(registry);
+        }
+
+        @Override
+        public int size() {
+            return records.length;
+        }
+    }
+}
@@ -2,30 +2,135 @@ package server.core;
 
 import model.Volunteer;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongConsumer;
 
+/**
+ * Versioned store of volunteer preferences.
+ * The current state is an immutable {@link PreferenceSnapshot}; writers swap in a new one with a
+ * compare-and-set, so reads never block writes and every reader sees one consistent version.
+ * Volunteers are stored as {@link CompactVolunteer} records with service names interned in a {@link ServiceRegistry}.
+ */
 public class PreferenceStore {
-    private final ConcurrentHashMap<Integer, Volunteer> volunteerMap;
+    private final ServiceRegistry registry = new ServiceRegistry(); // Service IDs used by the stored records
+    private final AtomicReference<PreferenceSnapshot> current;
+    private final List<LongConsumer> changeListeners = new CopyOnWriteArrayList<>();
 
     public PreferenceStore() {
-        volunteerMap = new ConcurrentHashMap<>();
+        current = new AtomicReference<>(new PreferenceSnapshot(0, PersistentIntMap.empty(), registry));
     }
 
     /**
      * Add or update a volunteer's preferences.
      * @param volunteer Volunteer object with ID, name, and preferences.
+     * @return Store version that contains this write.
      */
-    public void addOrUpdatePreferences(Volunteer volunteer) {
-        volunteerMap.put(volunteer.getId(), volunteer);
+    public long addOrUpdatePreferences(Volunteer volunteer) {
+        CompactVolunteer record = CompactVolunteer.of(volunteer, registry);
+        PreferenceSnapshot after;
+        while (true) {
+            PreferenceSnapshot before = current.get();
+            after = new PreferenceSnapshot(before.getVersion() + 1,
+                    before.map().put(volunteer.getId(), record), registry);
+            if (current.compareAndSet(before, after)) break;
+        }
+        notifyChange(after.getVersion());
+        return after.getVersion();
+    }
+
+    /**
+     * Add or update several volunteers as one write: a single new version contains all of them.
+     * If an ID appears more than once, the last occurrence wins.
+     * @param volunteers Volunteers to store.
+     * @return Store version that contains this write.
+     */
+    public long addOrUpdateAll(List<Volunteer> volunteers) {
+        Write write = write(volunteers);
+        write.commit();
+        return write.getVersion();
+    }
+
+    /**
+     * Like {@link #addOrUpdateAll}, but returns a handle for callers that make the write durable afterwards.
+     * Listeners are only notified by {@link Write#commit}, so nothing reacts to a write that is then reverted.
+     * @param volunteers Volunteers to store.
+     * @return The applied write.
+     */
+    public Write write(List<Volunteer> volunteers) {
+        List<CompactVolunteer> records = new ArrayList<>(volunteers.size());
+        for (Volunteer volunteer : volunteers) {
+            records.add(CompactVolunteer.of(volunteer, registry));
+        }
+        PreferenceSnapshot after;
+        List<CompactVolunteer> replaced = new ArrayList<>(records.size());
+        while (true) {
+            PreferenceSnapshot before = current.get();
+            PersistentIntMap<CompactVolunteer> map = before.map();
+            replaced.clear();
+            for (CompactVolunteer record : records) {
+                replaced.add(map.get(record.getId()));
+                map = map.put(record.getId(), record);
+            }
+            after = new PreferenceSnapshot(before.getVersion() + 1, map, registry);
+            if (current.compareAndSet(before, after)) break;
+        }
+        return new Write(after.getVersion(), records, replaced);
+    }
+
+    /**
+     * Replace the contents with data recovered from disk, without notifying listeners.
+     * @param records Recovered records, with service IDs of {@link #getRegistry()}.
+     * @param version Store version the recovered data was written at.
+     */
+    public void restore(Collection<CompactVolunteer> records, long version) {
+        PersistentIntMap<CompactVolunteer> map = PersistentIntMap.empty();
+        for (CompactVolunteer record : records) {
+            map = map.put(record.getId(), record);
+        }
+        current.set(new PreferenceSnapshot(version, map, registry));
+    }
+
+    /**
+     * Registry resolving the service IDs of stored records, shared by all snapshots of this store.
+     * @return The store's registry.
+     */
+    public ServiceRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Register a listener called once per stored write, on the writing thread; a bulk write is one call.
+     * Writes made through {@link #write} are reported when committed.
+     * @param listener Receives the store version containing the write.
+     */
+    public void addChangeListener(LongConsumer listener) {
+        changeListeners.add(listener);
+    }
+
+    private void notifyChange(long version) {
+        for (LongConsumer listener : changeListeners) {
+            listener.accept(version);
+        }
+    }
+
+    /**
+     * Get an immutable view of the current data, tagged with its version.
+     * @return Current snapshot.
+     */
+    public PreferenceSnapshot snapshot() {
+        return current.get();
     }
 
     /**
      * Get all current volunteer data.
-     * @return Collection of volunteers.
+     * @return Unmodifiable collection of volunteers from the current snapshot.
      */
     public Collection<Volunteer> getAllVolunteers() {
-        return volunteerMap.values();
+        return snapshot().getVolunteers();
     }
 
     /**
@@ -34,13 +139,65 @@ public class PreferenceStore {
      * @return Volunteer object or null.
      */
     public Volunteer getVolunteerById(int id) {
-        return volunteerMap.get(id);
+        return snapshot().getVolunteer(id);
+    }
+
+    /**
+     * A write applied by {@link #write}, with the records it replaced.
+     */
+    public final class Write {
+        private final long version;
+        private final List<CompactVolunteer> written;
+        private final List<CompactVolunteer> replaced; // Null where the volunteer was new
+
+        private Write(long version, List<CompactVolunteer> written, List<CompactVolunteer> replaced) {
+            this.version = version;
+            this.written = written;
+            this.replaced = replaced;
+        }
+
+        /**
+         * @return Store version that contains this write.
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Notify listeners of this write, once it is durable; a bulk write is one call.
+         */
+        public void commit() {
+            notifyChange(version);
+        }
+
+        /**
+         * Undo this write in a new version: volunteers still holding a record from it get back the record it
+         * replaced. Volunteers written again since keep the newer record. Listeners are not notified,
+         * as they never heard of an uncommitted write.
+         */
+        public void revert() {
+            while (true) {
+                PreferenceSnapshot before = current.get();
+                PersistentIntMap<CompactVolunteer> map = before.map();
+                for (int i = written.size() - 1; i >= 0; i--) { // Reverse order undoes repeated IDs step by step
+                    CompactVolunteer record = written.get(i);
+                    if (map.get(record.getId()) != record) continue;
+                    map = replaced.get(i) == null ? map.remove(record.getId()) : map.put(record.getId(), replaced.get(i));
+                }
+                PreferenceSnapshot after = new PreferenceSnapshot(before.getVersion() + 1, map, registry);
+                if (current.compareAndSet(before, after)) return;
+            }
+        }
     }
 
     /**
      * Clear all stored data (used only if needed).
      */
     public void clear() {
-        volunteerMap.clear();
+        while (true) {
+            PreferenceSnapshot before = current.get();
+            PreferenceSnapshot after = new PreferenceSnapshot(before.getVersion() + 1, PersistentIntMap.empty(), registry);
+            if (current.compareAndSet(before, after)) break;
+        }
     }
 }
@@ -0,0 +1,56 @@
+package server.core;
+
+import model.Assignment;
+import model.Volunteer;
+
+import java.util.*;
+
+/**
+ * An immutable published assignment result, remembered together with the preferences it was computed from.
+ * Used to warm-start the next optimization: volunteers whose preferences did not change keep their service.
+ */
+public class Roster {
+    private final List<Assignment> assignments;                 // Published assignments
+    private final Map<Integer, String> services;                // Volunteer ID -> assigned service name
+    private final PreferenceSnapshot snapshot;                  // Preferences the result was computed from
+    private final long catalogVersion;                          // Service catalog version the result was computed with
+
+    /**
+     * @param assignments    optimization result
+     * @param snapshot       the exact preference data the result was computed from
+     * @param catalogVersion version of the {@link ServiceCatalog} view whose capacities were used
+     */
+    public Roster(List<Assignment> assignments, PreferenceSnapshot snapshot, long catalogVersion) {
+        this.assignments = List.copyOf(assignments);
+        this.snapshot = snapshot;
+        this.catalogVersion = catalogVersion;
+        this.services = new HashMap<>();
+        for (Assignment a : assignments) {
+            services.put(a.getVolunteerId(), a.getServiceName());
+        }
+    }
+
+    public List<Assignment> getAssignments() {
+        return assignments;
+    }
+
+    public long getSnapshotVersion() {
+        return snapshot.getVersion();
+    }
+
+    public long getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    /**
+     * Returns the service the volunteer had in this roster if their preferences are still the same,
+     * or {@code null} if they are new, were unassigned or changed their preferences.
+     */
+    public String previousService(Volunteer volunteer) {
+        CompactVolunteer before = snapshot.getRecord(volunteer.getId());
+        if (before == null || !before.hasSameRanking(volunteer, snapshot.getRegistry())) {
+            return null;
+        }
+        return services.get(volunteer.getId());
+    }
+}
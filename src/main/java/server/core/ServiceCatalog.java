@@ -0,0 +1,116 @@
+package server.core;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Versioned set of services volunteers can be assigned to, with their capacities.
+ * Every change produces a new immutable {@link View} with a higher version, so an optimization run
+ * can take one consistent view while the catalog keeps changing.
+ */
+public class ServiceCatalog {
+    public static final int MAX_NAME_LENGTH = 200; // Characters in a service name added at runtime
+
+    private volatile View current;  // Latest capacities together with their version
+    private final List<Consumer<String>> changeListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param initial services and capacities to start with
+     * @param version version of {@code initial}, e.g. as saved by an earlier run
+     */
+    public ServiceCatalog(Map<String, Integer> initial, long version) {
+        for (Map.Entry<String, Integer> e : initial.entrySet()) {
+            validate(e.getKey(), e.getValue());
+        }
+        this.current = new View(version, new LinkedHashMap<>(initial));
+    }
+
+    /**
+     * Current capacities and their version, read together.
+     */
+    public View view() {
+        return current;
+    }
+
+    /**
+     * Adds a service or changes its capacity.
+     * @return the new catalog version
+     */
+    public long put(String name, int capacity) {
+        validate(name, capacity);
+        if (name.length() > MAX_NAME_LENGTH) { // Not checked for a saved catalog, which must keep loading
+            throw new IllegalArgumentException("service name longer than " + MAX_NAME_LENGTH + " characters");
+        }
+        View next;
+        synchronized (this) {
+            Map<String, Integer> changed = new LinkedHashMap<>(current.getCapacities());
+            changed.put(name, capacity);
+            next = new View(current.getVersion() + 1, changed);
+            current = next;
+        }
+        notifyListeners(name);
+        return next.getVersion();
+    }
+
+    /**
+     * Removes a service. Volunteers who ranked it can no longer be assigned to it.
+     * @return true if the service existed
+     */
+    public boolean remove(String name) {
+        synchronized (this) {
+            if (!current.getCapacities().containsKey(name)) return false;
+            Map<String, Integer> changed = new LinkedHashMap<>(current.getCapacities());
+            changed.remove(name);
+            current = new View(current.getVersion() + 1, changed);
+        }
+        notifyListeners(name);
+        return true;
+    }
+
+    /**
+     * Register a listener called after every change with the affected service name, on the writing thread.
+     */
+    public void addChangeListener(Consumer<String> listener) {
+        changeListeners.add(listener);
+    }
+
+    private void notifyListeners(String name) {
+        for (Consumer<String> listener : changeListeners) {
+            listener.accept(name);
+        }
+    }
+
+    private static void validate(String name, Integer capacity) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("service name must not be blank");
+        }
+        if (capacity == null || capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative");
+        }
+    }
+
+    /**
+     * Immutable catalog state at one version.
+     */
+    public static final class View {
+        private final long version;
+        private final Map<String, Integer> capacities;
+
+        private View(long version, Map<String, Integer> capacities) {
+            this.version = version;
+            this.capacities = Collections.unmodifiableMap(capacities);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public Map<String, Integer> getCapacities() {
+            return capacities;
+        }
+    }
+}
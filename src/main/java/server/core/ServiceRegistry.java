@@ -0,0 +1,60 @@
+package server.core;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns every service name a small, stable integer ID.
+ * IDs are handed out in order of first use and never reused, so a record that stores IDs
+ * stays valid for the lifetime of the registry. Lookups are lock-free; only new names take a lock.
+ * IDs fit in a short; the API only accepts preferences for catalog services, so the registry grows with
+ * the catalog rather than with client input.
+ */
+public final class ServiceRegistry {
+    public static final int NONE = -1; // ID used for a missing (null) service name
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>(); // Name -> ID
+    private volatile String[] names = new String[0];                   // ID -> name
+
+    /**
+     * Returns the ID of {@code name}, registering it if it is new.
+     */
+    public int intern(String name) {
+        if (name == null) return NONE;
+        Integer id = ids.get(name);
+        if (id != null) return id;
+
+        synchronized (this) {
+            id = ids.get(name);
+            if (id != null) return id;
+            if (names.length > Short.MAX_VALUE) {
+                throw new IllegalStateException("Too many distinct services: " + names.length);
+            }
+            // Publish the name before the ID so any reader that sees the ID can resolve it
+            String[] grown = Arrays.copyOf(names, names.length + 1);
+            grown[names.length] = name;
+            names = grown;
+            ids.put(name, names.length - 1);
+            return names.length - 1;
+        }
+    }
+
+    /**
+     * @return the ID of {@code name}, or {@link #NONE} if it was never registered
+     */
+    public int id(String name) {
+        return name == null ? NONE : ids.getOrDefault(name, NONE);
+    }
+
+    /**
+     * @return the name for {@code id}, or null for {@link #NONE}
+     */
+    public String name(int id) {
+        return id == NONE ? null : names[id];
+    }
+
+    public int size() {
+        return names.length;
+    }
+}
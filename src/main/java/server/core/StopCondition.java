@@ -0,0 +1,57 @@
+package server.core;
+
+/**
+ * Decides when a genetic algorithm run may end before its generation limit.
+ * A run stops when its wall-clock budget is used up, when the best cost has not improved for a
+ * number of generations, or when the best cost reaches a known lower bound or requested target.
+ * Interrupting the thread that created the condition also counts as an expired budget, which is how
+ * a cancelled job stops a run that is evolving on pool threads.
+ * Only {@link #expired()} may be called from several threads at once.
+ */
+final class StopCondition {
+    private final long deadline;       // System.nanoTime() deadline, Long.MAX_VALUE if unbounded
+    private final int stallLimit;      // Generations without improvement before stopping, 0 = never
+    private final double goal;         // Stop as soon as the best cost is at or below this
+    private final Thread owner;        // Thread running the optimization
+
+    private double best = Double.MAX_VALUE;
+    private int stalled;
+
+    /**
+     * @param timeBudgetMillis wall-clock budget in milliseconds, 0 for none
+     * @param stallLimit       generations without improvement before stopping, 0 for none
+     * @param goal             cost that is good enough to stop immediately
+     */
+    StopCondition(long timeBudgetMillis, int stallLimit, double goal) {
+        this.deadline = timeBudgetMillis > 0 ? System.nanoTime() + timeBudgetMillis * 1_000_000L : Long.MAX_VALUE;
+        this.stallLimit = stallLimit;
+        this.goal = goal;
+        this.owner = Thread.currentThread();
+    }
+
+    /**
+     * Whether the time budget is used up or the run was interrupted.
+     */
+    boolean expired() {
+        return owner.isInterrupted() || (deadline != Long.MAX_VALUE && System.nanoTime() - deadline >= 0);
+    }
+
+    /**
+     * Records the best cost after some generations and tells whether the run should stop.
+     *
+     * @param bestCost    best cost in the population(s)
+     * @param generations generations evolved since the previous call
+     */
+    boolean record(double bestCost, int generations) {
+        if (bestCost < best) {
+            best = bestCost;
+            stalled = 0;
+        } else {
+            stalled += generations;
+        }
+
+        return best <= goal
+                || (stallLimit > 0 && stalled >= stallLimit)
+                || expired();
+    }
+}
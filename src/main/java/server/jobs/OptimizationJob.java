@@ -0,0 +1,119 @@
+package server.jobs;
+
+import model.Assignment;
+import server.core.OptimizerSettings;
+import server.core.Roster;
+
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * One queued or executed optimization run, as reported by {@code GET /optimize/{id}}.
+ * Non-transient fields are serialized to JSON as the job's status.
+ */
+public class OptimizationJob {
+
+    /**
+     * Lifecycle of a job.
+     */
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    /**
+     * What asked for the run: a client's {@code /optimize} call, automatic re-optimization, or a roster repair
+     * after a catalog change.
+     */
+    public enum Trigger { REQUEST, AUTO, REPAIR }
+
+    private final long id;                    // Job ID handed out to the client
+    private final Trigger trigger;
+    private volatile Status status = Status.QUEUED;
+    private final long submittedAt;           // Epoch millis
+    private volatile Long startedAt;          // Epoch millis, null while queued
+    private volatile Long finishedAt;         // Epoch millis, null until done
+    private volatile int coalescedRequests;   // Later /optimize calls folded into this job
+    private volatile String error;            // Failure message if FAILED
+    private volatile Long snapshotVersion;    // Preference store version the result was computed from
+    private volatile Long catalogVersion;     // Service catalog version the result was computed with
+    private volatile Double totalCost;        // Sum of assignment costs once COMPLETED
+    private volatile List<Assignment> assignments; // Result once COMPLETED
+
+    private final transient OptimizerSettings settings;    // Settings shared by every request folded into this job
+    private transient volatile Future<?> future;           // Handle of the running task
+
+    OptimizationJob(long id, Trigger trigger, OptimizerSettings settings) {
+        this.id = id;
+        this.trigger = trigger;
+        this.settings = settings;
+        this.submittedAt = System.currentTimeMillis();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Trigger getTrigger() {
+        return trigger;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public List<Assignment> getAssignments() {
+        return assignments;
+    }
+
+    OptimizerSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Folds a later request with the same trigger and settings into this still-queued job.
+     */
+    void coalesce() {
+        coalescedRequests++;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    Future<?> getFuture() {
+        return future;
+    }
+
+    void markRunning() {
+        startedAt = System.currentTimeMillis();
+        status = Status.RUNNING;
+    }
+
+    void markCompleted(Roster roster) {
+        double total = 0;
+        for (Assignment a : roster.getAssignments()) {
+            total += a.getCost();
+        }
+        this.assignments = roster.getAssignments();
+        this.snapshotVersion = roster.getSnapshotVersion();
+        this.catalogVersion = roster.getCatalogVersion();
+        this.totalCost = total;
+        finish(Status.COMPLETED);
+    }
+
+    void markFailed(String error) {
+        this.error = error;
+        finish(Status.FAILED);
+    }
+
+    void markCancelled() {
+        finish(Status.CANCELLED);
+    }
+
+    boolean isDone() {
+        return status == Status.COMPLETED || status == Status.FAILED || status == Status.CANCELLED;
+    }
+
+    private void finish(Status status) {
+        finishedAt = System.currentTimeMillis();
+        this.status = status;
+    }
+}
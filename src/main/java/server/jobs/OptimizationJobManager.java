@@ -0,0 +1,172 @@
+package server.jobs;
+
+import server.core.OptimizerSettings;
+import server.core.Roster;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs optimization jobs one at a time on a bounded executor.
+ * <p>
+ * All runs work on the same preference data, so at most one job runs; the others wait in submission order.
+ * A request whose settings equal those of a waiting job is coalesced into it, since both would compute
+ * the same roster from the latest data. Requests with different settings get their own job, so every
+ * caller's job runs with the settings it asked for.
+ * <p>
+ * Automatic runs and roster repairs never share a job with client requests: each has one waiting slot of
+ * its own, outside the limit on waiting client jobs, so neither can replace or crowd out the other.
+ */
+public class OptimizationJobManager {
+    private static final int MAX_RETAINED_JOBS = 100; // Finished jobs kept for status queries
+    private static final int MAX_PENDING_JOBS = 4;    // Waiting client jobs with distinct settings
+
+    /**
+     * Computes the roster for one job. Implementations should return early when interrupted.
+     */
+    public interface Runner {
+        Roster run(OptimizerSettings settings) throws Exception;
+    }
+
+    private final Runner runner;                  // Performs the optimization
+    private final Consumer<Roster> publisher;     // Publishes results of jobs that were not cancelled
+    private final ExecutorService executor = new ThreadPoolExecutor(
+            1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1),
+            r -> {
+                Thread t = new Thread(r, "optimization-worker");
+                t.setDaemon(true);
+                return t;
+            });
+
+    private final Map<Long, OptimizationJob> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, OptimizationJob> eldest) {
+            return size() > MAX_RETAINED_JOBS && eldest.getValue().isDone();
+        }
+    };
+
+    private long nextId = 1;
+    private OptimizationJob running;   // Job currently executing, or null
+    private final Deque<OptimizationJob> pending = new ArrayDeque<>(); // Jobs waiting for the running one, oldest first
+
+    public OptimizationJobManager(Runner runner, Consumer<Roster> publisher) {
+        this.runner = runner;
+        this.publisher = publisher;
+    }
+
+    /**
+     * Requests an optimization run on behalf of a client.
+     * Returns a new job, or the waiting job with equal settings if one exists.
+     *
+     * @throws RejectedExecutionException if too many jobs with other settings are already waiting
+     */
+    public OptimizationJob submit(OptimizerSettings settings) {
+        return submit(OptimizationJob.Trigger.REQUEST, settings);
+    }
+
+    /**
+     * Requests an optimization run. Automatic and repair runs are always accepted; a waiting run with the
+     * same trigger is reused, since each of them always uses the same settings.
+     *
+     * @throws RejectedExecutionException if too many client jobs with other settings are already waiting
+     */
+    public synchronized OptimizationJob submit(OptimizationJob.Trigger trigger, OptimizerSettings settings) {
+        boolean request = trigger == OptimizationJob.Trigger.REQUEST;
+        int waitingRequests = 0;
+        for (OptimizationJob waiting : pending) {
+            if (waiting.getTrigger() != trigger) continue;
+            if (!request || waiting.getSettings().equals(settings)) {
+                waiting.coalesce();
+                return waiting;
+            }
+            waitingRequests++;
+        }
+        if (request && waitingRequests >= MAX_PENDING_JOBS) {
+            throw new RejectedExecutionException("Too many optimization jobs are waiting");
+        }
+
+        OptimizationJob job = new OptimizationJob(nextId++, trigger, settings);
+        jobs.put(job.getId(), job);
+        if (running == null) {
+            start(job);
+        } else {
+            pending.add(job);
+        }
+        return job;
+    }
+
+    /**
+     * Looks up a job by ID.
+     *
+     * @return the job, or null if unknown or no longer retained
+     */
+    public synchronized OptimizationJob get(long id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * Cancels a queued or running job. A cancelled run's result is never published.
+     *
+     * @return false if the job is unknown or already finished
+     */
+    public synchronized boolean cancel(long id) {
+        OptimizationJob job = jobs.get(id);
+        if (job == null || job.isDone()) {
+            return false;
+        }
+
+        job.markCancelled();
+        if (!pending.remove(job) && job.getFuture() != null) {
+            job.getFuture().cancel(true); // Interrupts the optimizer, which stops at its next check
+        }
+        return true;
+    }
+
+    /**
+     * Stops the worker thread; running jobs are interrupted.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void start(OptimizationJob job) {
+        running = job;
+        job.setFuture(executor.submit(() -> execute(job)));
+    }
+
+    private void execute(OptimizationJob job) {
+        try {
+            if (job.isDone()) return; // Cancelled before it started
+            job.markRunning();
+
+            Roster result = runner.run(job.getSettings());
+            synchronized (this) {
+                if (job.isDone()) return; // Cancelled while running
+                job.markCompleted(result);
+            }
+            publisher.accept(result);
+        } catch (Exception e) {
+            synchronized (this) {
+                if (!job.isDone()) {
+                    job.markFailed(e.toString());
+                }
+            }
+        } finally {
+            synchronized (this) {
+                running = null;
+                OptimizationJob next = pending.poll();
+                if (next != null) {
+                    start(next);
+                }
+            }
+        }
+    }
+}
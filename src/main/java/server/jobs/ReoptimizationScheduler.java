@@ -0,0 +1,154 @@
+package server.jobs;
+
+import server.core.OptimizerSettings;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opt-in background re-optimization driven by preference changes.
+ * <p>
+ * Each stored write (re)starts a quiet-period timer, so a burst of submissions leads to a single run.
+ * While changes keep arriving, a run still starts at most {@code maxDelayMillis} after the first one,
+ * and automatic runs are at least {@code minIntervalMillis} apart. Runs are warm-started from the
+ * last roster and go through the {@link OptimizationJobManager}, which broadcasts the result.
+ */
+public class ReoptimizationScheduler {
+    private final OptimizationJobManager jobs;  // Executes and publishes the runs
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "reoptimization-timer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile boolean enabled = false;        // Off unless switched on via the API
+    private volatile long quietPeriodMillis = 2000;  // Wait this long after the last change
+    private volatile long maxDelayMillis = 10000;    // Never wait longer than this after the first change
+    private volatile long minIntervalMillis = 5000;  // Minimum time between two automatic runs
+
+    private ScheduledFuture<?> scheduled;  // Pending timer check, or null
+    private long firstChangeAt = -1;       // Epoch millis of the first change not yet handled, -1 if none
+    private long lastChangeAt;             // Epoch millis of the latest change
+    private long lastRunAt;                // Epoch millis of the last automatic run
+
+    public ReoptimizationScheduler(OptimizationJobManager jobs) {
+        this.jobs = jobs;
+    }
+
+    /**
+     * Preference store listener, called once per stored write; schedules a debounced, rate-limited run if enabled.
+     * Only records the change while a timer is pending; the timer moves itself later if needed.
+     */
+    public synchronized void onPreferenceChange(long version) {
+        if (!enabled) return;
+
+        long now = System.currentTimeMillis();
+        lastChangeAt = now;
+        if (firstChangeAt < 0) {
+            firstChangeAt = now;
+        }
+        if (scheduled == null) {
+            schedule(now);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Switches automatic re-optimization on or off; switching off drops any pending run.
+     */
+    public synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled && scheduled != null) {
+            scheduled.cancel(false);
+            scheduled = null;
+            firstChangeAt = -1;
+        }
+    }
+
+    public long getQuietPeriodMillis() {
+        return quietPeriodMillis;
+    }
+
+    public void setQuietPeriodMillis(long quietPeriodMillis) {
+        this.quietPeriodMillis = requireNonNegative(quietPeriodMillis, "quietPeriodMillis");
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    public void setMaxDelayMillis(long maxDelayMillis) {
+        this.maxDelayMillis = requireNonNegative(maxDelayMillis, "maxDelayMillis");
+    }
+
+    public long getMinIntervalMillis() {
+        return minIntervalMillis;
+    }
+
+    public void setMinIntervalMillis(long minIntervalMillis) {
+        this.minIntervalMillis = requireNonNegative(minIntervalMillis, "minIntervalMillis");
+    }
+
+    /**
+     * Stops the timer thread.
+     */
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private void schedule(long now) {
+        scheduled = timer.schedule(this::check, Math.max(0, runAt() - now), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * When the pending changes should be handled: after the quiet period, capped by the maximum delay,
+     * and no sooner than the minimum interval after the last run.
+     */
+    private long runAt() {
+        long runAt = Math.min(lastChangeAt + quietPeriodMillis, firstChangeAt + maxDelayMillis);
+        return Math.max(runAt, lastRunAt + minIntervalMillis);
+    }
+
+    /**
+     * Timer callback: runs now, or waits longer if changes arrived since it was scheduled.
+     */
+    private synchronized void check() {
+        scheduled = null;
+        if (!enabled || firstChangeAt < 0) return;
+
+        long now = System.currentTimeMillis();
+        if (runAt() > now) {
+            schedule(now);
+            return;
+        }
+        firstChangeAt = -1;
+        lastRunAt = now;
+        OptimizationJob job = jobs.submit(OptimizationJob.Trigger.AUTO, incrementalSettings());
+        System.out.println("Automatic re-optimization queued as job " + job.getId() + ".");
+    }
+
+    /**
+     * Settings for automatic runs: a short, warm-started GA polished by local search.
+     */
+    private static OptimizerSettings incrementalSettings() {
+        OptimizerSettings settings = new OptimizerSettings();
+        settings.setEngine("ga");
+        settings.setWarmStart(true);
+        settings.setStallGenerations(20);
+        settings.setTimeBudgetMillis(5000L);
+        settings.setLocalSearchPasses(50);
+        return settings;
+    }
+
+    private static long requireNonNegative(long value, String name) {
+        if (value < 0) {
+            throw new IllegalArgumentException(name + " must not be negative");
+        }
+        return value;
+    }
+}
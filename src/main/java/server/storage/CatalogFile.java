@@ -0,0 +1,74 @@
+package server.storage;
+
+import com.google.gson.Gson;
+import model.Service;
+import server.core.ServiceCatalog;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the service catalog in {@code services.json} so runtime changes survive a restart.
+ * The file is small and rewritten whole (temp file + atomic rename) on every change.
+ */
+public final class CatalogFile {
+    private static final String FILE_NAME = "services.json";
+
+    private final Path file;
+    private final Gson gson = new Gson();
+
+    public CatalogFile(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.file = directory.resolve(FILE_NAME);
+    }
+
+    /**
+     * Loads the saved catalog, or returns null if none was saved yet.
+     */
+    public ServiceCatalog load() throws IOException {
+        if (!Files.exists(file)) return null;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Saved saved = gson.fromJson(reader, Saved.class);
+            Map<String, Integer> capacities = new LinkedHashMap<>();
+            for (Service service : saved.services) {
+                capacities.put(service.getName(), service.getCapacity());
+            }
+            return new ServiceCatalog(capacities, saved.version);
+        }
+    }
+
+    /**
+     * Writes {@code view}, replacing the previous file.
+     */
+    public synchronized void save(ServiceCatalog.View view) throws IOException {
+        Saved saved = new Saved();
+        saved.version = view.getVersion();
+        saved.services = new ArrayList<>();
+        view.getCapacities().forEach((name, capacity) -> saved.services.add(new Service(name, capacity)));
+
+        Path temp = file.resolveSibling(FILE_NAME + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            gson.toJson(saved, writer);
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * File layout: catalog version and services in catalog order.
+     */
+    private static final class Saved {
+        long version;
+        List<Service> services;
+    }
+}
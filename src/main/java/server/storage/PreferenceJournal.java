@@ -0,0 +1,465 @@
+package server.storage;
+
+import model.Volunteer;
+import server.core.CompactVolunteer;
+import server.core.PreferenceSnapshot;
+import server.core.ServiceRegistry;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Durable storage for preference writes: an append-only write-ahead log plus periodic compacted snapshots.
+ * <p>
+ * Appends are encoded on the caller's thread, so a record that cannot be encoded fails on its own, then queued
+ * and written by a single writer thread. It drains every waiting record into one batch and calls {@code fsync}
+ * once per batch (group commit), so concurrent writers share the cost of each sync. Each append's future
+ * completes once its record is durable, or exceptionally if it never will be; after a failed write the
+ * segment is cut back to its last synced length, so a failed record is not written later either.
+ * <p>
+ * The log is split into numbered segments ({@code wal-N.log}). Compaction closes the current segment,
+ * writes the store's current snapshot to {@code snapshot.bin} (see {@link SnapshotFile}) and deletes the closed segments.
+ * Recovery loads the snapshot and replays the remaining segments, keeping for every volunteer the
+ * record with the highest store version.
+ * <p>
+ * Record layout: payload length, payload (store version + encoded volunteer), CRC32 of the payload.
+ * A torn or corrupt record ends the replay of its segment.
+ */
+public class PreferenceJournal implements Closeable {
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int MAX_BATCH = 8192;            // Records per group commit at most
+    private static final int MAX_RECORD = 1 << 24;        // Sanity limit when reading a record length
+
+    private final Path directory;      // Directory holding snapshot and log segments
+    private final long compactEvery;   // Records appended between two automatic compactions
+
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "journal-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+    private Thread writer;
+    private volatile boolean closed;   // Set under the lock on this, which also guards adding to the queue
+    private Supplier<PreferenceSnapshot> snapshotSource;
+    private volatile IOException closeError; // Failure closing the last segment, rethrown by close()
+
+    // Writer-thread state
+    private int segmentNumber;
+    private DataOutputStream out;
+    private FileChannel channel;
+    private long syncedLength;         // Length of the current segment at its last sync
+    private long sinceCompaction;
+
+    /**
+     * @param directory    where snapshot and log segments live (created if missing)
+     * @param compactEvery number of appended records after which a compaction runs automatically
+     */
+    public PreferenceJournal(Path directory, long compactEvery) throws IOException {
+        this.directory = directory;
+        this.compactEvery = compactEvery;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Replays snapshot and log into {@code sink}, one call per volunteer with its latest data.
+     * Records are built directly in store form, with service IDs of {@code registry}.
+     * Must be called before {@link #start}.
+     *
+     * @return highest store version found, 0 if there is no data
+     */
+    public long recover(ServiceRegistry registry, Consumer<CompactVolunteer> sink) throws IOException {
+        Map<Integer, CompactVolunteer> latest = new HashMap<>();
+        Map<Integer, Long> versions = new HashMap<>();
+        long version = 0;
+
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            version = readSnapshot(snapshot, registry, latest, versions);
+        }
+
+        for (Path segment : segments()) {
+            version = Math.max(version, replay(segment, registry, latest, versions));
+        }
+
+        latest.values().forEach(sink);
+        return version;
+    }
+
+    /**
+     * Opens a fresh log segment and starts the writer thread.
+     *
+     * @param snapshotSource supplies the store's current snapshot when compacting
+     */
+    public synchronized void start(Supplier<PreferenceSnapshot> snapshotSource) throws IOException {
+        this.snapshotSource = snapshotSource;
+        List<Path> existing = segments();
+        segmentNumber = existing.isEmpty() ? 0 : segmentNumber(existing.get(existing.size() - 1));
+        openNextSegment();
+
+        writer = new Thread(this::writeLoop, "journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a record for the volunteer as stored at {@code version}.
+     *
+     * @return future completed once the record has been synced to disk
+     */
+    public CompletableFuture<Void> append(long version, Volunteer volunteer) {
+        Entry entry;
+        try {
+            entry = Entry.record(version, volunteer);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (!enqueue(List.of(entry))) {
+            return CompletableFuture.failedFuture(new IOException("Journal is closed"));
+        }
+        return entry.future.thenApply(sealed -> null);
+    }
+
+    /**
+     * Queues records for volunteers written together at {@code version}, in list order.
+     * If one of them cannot be encoded, none is queued.
+     *
+     * @return future completed once all records have been synced to disk
+     */
+    public CompletableFuture<Void> append(long version, List<Volunteer> volunteers) {
+        List<Entry> entries = new ArrayList<>(volunteers.size());
+        try {
+            for (Volunteer volunteer : volunteers) {
+                entries.add(Entry.record(version, volunteer));
+            }
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (!enqueue(entries)) {
+            return CompletableFuture.failedFuture(new IOException("Journal is closed"));
+        }
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[entries.size()];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = entries.get(i).future;
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    /**
+     * Requests a compaction: the current segment is closed, the latest snapshot written and old segments deleted.
+     *
+     * @return future completed when the snapshot is on disk, or exceptionally if it could not be written
+     */
+    public CompletableFuture<Void> compact() {
+        Entry rotation = new Entry(null, 0);
+        if (!enqueue(List.of(rotation))) {
+            return CompletableFuture.failedFuture(new IOException("Journal is closed"));
+        }
+        return rotation.future.thenAcceptAsync(this::writeSnapshot, compactor);
+    }
+
+    /**
+     * Writes all queued records, then stops the writer thread.
+     *
+     * @throws IOException if the last segment could not be closed cleanly
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            closed = true; // Nothing is queued after this, so the writer can drain the queue and stop
+        }
+        if (writer != null) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Entries the writer never took, because it was not started or was interrupted
+        IOException notWritten = new IOException("Journal is closed");
+        for (Entry entry; (entry = queue.poll()) != null; ) {
+            entry.future.completeExceptionally(notWritten);
+        }
+        compactor.shutdown();
+        if (closeError != null) {
+            throw closeError;
+        }
+    }
+
+    private synchronized boolean enqueue(List<Entry> entries) {
+        if (closed) return false;
+        queue.addAll(entries);
+        return true;
+    }
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>();
+
+        while (!closed || !queue.isEmpty()) {
+            Entry first;
+            try {
+                first = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (first == null) continue;
+            batch.add(first);
+            queue.drainTo(batch, MAX_BATCH - 1);
+
+            int done = 0; // Entries of the batch already synced and completed
+            try {
+                int records = 0;
+                for (int i = 0; i < batch.size(); i++) {
+                    Entry entry = batch.get(i);
+                    if (entry.payload == null) {
+                        // Rotation request: seal the current segment and hand its number to the compactor
+                        sync();
+                        done = complete(batch, done, i);
+                        entry.sealedSegment = segmentNumber;
+                        try {
+                            openNextSegment();
+                            entry.complete();
+                        } catch (IOException e) {
+                            entry.future.completeExceptionally(e); // Nothing is compacted; appends go on
+                        }
+                        done++;
+                        continue;
+                    }
+
+                    out.writeInt(entry.payload.length);
+                    out.write(entry.payload);
+                    out.writeInt(entry.checksum);
+                    records++;
+                }
+                sync(); // One fsync for the whole batch
+                complete(batch, done, batch.size());
+
+                sinceCompaction += records;
+                if (sinceCompaction >= compactEvery) {
+                    sinceCompaction = 0;
+                    compact().whenComplete((result, error) -> {
+                        if (error != null) {
+                            System.out.println("Automatic compaction failed: " + error.getCause());
+                        }
+                    });
+                }
+            } catch (IOException e) {
+                for (Entry entry : batch.subList(done, batch.size())) {
+                    entry.future.completeExceptionally(e);
+                }
+                discardUnsynced();
+            }
+            batch.clear();
+        }
+
+        try {
+            out.close();
+        } catch (IOException e) {
+            closeError = e;
+        }
+    }
+
+    /**
+     * Completes {@code batch[from, to)}, whose records have just been synced.
+     *
+     * @return {@code to}
+     */
+    private static int complete(List<Entry> batch, int from, int to) {
+        for (Entry entry : batch.subList(from, to)) {
+            entry.complete();
+        }
+        return to;
+    }
+
+    /**
+     * After a failed write, drops buffered bytes and cuts the segment back to its last synced length,
+     * so records whose appends failed are not written by a later sync.
+     */
+    private void discardUnsynced() {
+        out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+        try {
+            channel.truncate(syncedLength);
+            channel.position(syncedLength);
+        } catch (IOException e) {
+            System.out.println("Could not truncate journal segment " + segmentNumber + ": " + e.getMessage());
+        }
+    }
+
+    private void sync() throws IOException {
+        out.flush();
+        channel.force(false);
+        syncedLength = channel.position();
+    }
+
+    /**
+     * Switches to a new segment. The new file is opened before the current one is closed, so if it cannot be
+     * created the writer keeps appending to the current segment and only the rotation fails.
+     */
+    private void openNextSegment() throws IOException {
+        FileChannel next = FileChannel.open(segmentPath(segmentNumber + 1),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        DataOutputStream previous = out;
+        segmentNumber++;
+        channel = next;
+        syncedLength = 0;
+        out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+        if (previous != null) {
+            previous.close(); // Already synced, so a failure here only fails the rotation
+        }
+    }
+
+    /**
+     * Writes the store's current snapshot and deletes segments up to {@code sealedSegment}.
+     * Every record in those segments was applied to the store before the segment was sealed,
+     * so the snapshot taken afterwards contains them all.
+     *
+     * @throws UncheckedIOException if the snapshot could not be written; the segments are then kept
+     */
+    private void writeSnapshot(int sealedSegment) {
+        PreferenceSnapshot snapshot = snapshotSource.get();
+        Path target = directory.resolve(SNAPSHOT_FILE);
+        Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+
+        try {
+            SnapshotFile.write(temp, snapshot);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // Overwritten by the next compaction
+            }
+            throw new UncheckedIOException("Could not write preference snapshot", e);
+        }
+
+        try {
+            for (Path segment : segments()) {
+                if (segmentNumber(segment) <= sealedSegment) {
+                    Files.deleteIfExists(segment);
+                }
+            }
+        } catch (IOException e) {
+            // The snapshot is in place; leftover segments only hold records it already contains
+            throw new UncheckedIOException("Snapshot written, but old segments could not be deleted", e);
+        }
+        System.out.println("Preference snapshot written at version " + snapshot.getVersion() + ".");
+    }
+
+    private long readSnapshot(Path path, ServiceRegistry registry, Map<Integer, CompactVolunteer> latest,
+                              Map<Integer, Long> versions) throws IOException {
+        List<CompactVolunteer> loaded = new ArrayList<>();
+        long version = SnapshotFile.read(path, registry, loaded::add);
+        for (CompactVolunteer record : loaded) {
+            latest.put(record.getId(), record);
+            versions.put(record.getId(), version);
+        }
+        return version;
+    }
+
+    /**
+     * Applies one segment's records; stops quietly at a torn or corrupt record.
+     *
+     * @return highest version seen
+     */
+    private long replay(Path segment, ServiceRegistry registry, Map<Integer, CompactVolunteer> latest,
+                        Map<Integer, Long> versions) throws IOException {
+        long highest = 0;
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment), 1 << 16))) {
+            while (true) {
+                byte[] payload;
+                int checksum;
+                try {
+                    int length = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD) break;
+                    payload = new byte[length];
+                    in.readFully(payload);
+                    checksum = in.readInt();
+                } catch (EOFException e) {
+                    break; // Torn tail from a crash mid-write
+                }
+
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) break;
+
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+                long version = record.readLong();
+                Volunteer volunteer = VolunteerCodec.read(record);
+                // Concurrent writers may log out of version order; keep the newest per volunteer.
+                // Records sharing a version come from one batch, where the later one wins.
+                if (version >= versions.getOrDefault(volunteer.getId(), -1L)) {
+                    latest.put(volunteer.getId(), CompactVolunteer.of(volunteer, registry));
+                    versions.put(volunteer.getId(), version);
+                }
+                highest = Math.max(highest, version);
+            }
+        }
+        return highest;
+    }
+
+    private List<Path> segments() throws IOException {
+        List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(result::add);
+        }
+        result.sort(Comparator.comparingInt(PreferenceJournal::segmentNumber));
+        return result;
+    }
+
+    private Path segmentPath(int number) {
+        return directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private static int segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * A queued log record, or a rotation request when {@code payload} is null.
+     */
+    private static final class Entry {
+        final byte[] payload;    // Store version + encoded volunteer
+        final int checksum;      // CRC32 of the payload
+        final CompletableFuture<Integer> future = new CompletableFuture<>();
+        int sealedSegment;       // Set by the writer for rotation requests
+
+        Entry(byte[] payload, int checksum) {
+            this.payload = payload;
+            this.checksum = checksum;
+        }
+
+        /**
+         * Encodes a log record.
+         *
+         * @throws IOException if the volunteer cannot be encoded, e.g. a string longer than 64 KB
+         */
+        static Entry record(long version, Volunteer volunteer) throws IOException {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(buffer);
+            out.writeLong(version);
+            VolunteerCodec.write(out, volunteer);
+            if (buffer.size() > MAX_RECORD) {
+                throw new IOException("Record for volunteer " + volunteer.getId() + " is too large to journal");
+            }
+            byte[] payload = buffer.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            return new Entry(payload, (int) crc.getValue());
+        }
+
+        void complete() {
+            future.complete(sealedSegment);
+        }
+    }
+}
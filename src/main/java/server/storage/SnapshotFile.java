@@ -0,0 +1,243 @@
+package server.storage;
+
+import server.core.CompactVolunteer;
+import server.core.PreferenceSnapshot;
+import server.core.ServiceRegistry;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of the preference store, written and read through a memory-mapped file.
+ * <p>
+ * The file is a set of flat arrays instead of one record per volunteer, so loading is a few bulk
+ * copies out of the mapping rather than per-field parsing:
+ * <pre>
+ * header    magic, flags, store version, volunteer count n, service count, rank count, name bytes
+ * services  interned service names (int length + UTF-8), padded to 4 bytes
+ * ids       int[n]        volunteer ID per dense index
+ * prefStart int[n + 1]    offset of each volunteer's first rank
+ * nameLen   int[n]        UTF-8 length of each name, -1 for null
+ * ranks     short[ranks]  service ID per preference in ranked order (-1 for a null service)
+ * priority  int[ranks]    only when FLAG_PRIORITIES is set, i.e. some priority is not its 1-based position
+ * names     byte[]        all names back to back
+ * crc       int           CRC32 of everything before it
+ * </pre>
+ * The ranks are the same "volunteer -> ranked service indices" shape the optimizers build internally,
+ * and the shape {@link CompactVolunteer} stores, so reading produces store records without going
+ * through {@code Volunteer} objects.
+ */
+final class SnapshotFile {
+    private static final int MAGIC = 0x56505332;       // "VPS2"
+    private static final int FLAG_PRIORITIES = 1;      // Explicit priorities section present
+    private static final int HEADER_BYTES = 36;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Writes {@code snapshot} to {@code path}, replacing any existing file, and syncs it to disk.
+     */
+    static void write(Path path, PreferenceSnapshot snapshot) throws IOException {
+        List<CompactVolunteer> volunteers = snapshot.getCompactVolunteers();
+        ServiceRegistry registry = snapshot.getRegistry();
+        int n = volunteers.size();
+
+        // The records already hold registry IDs, so the registry becomes the service table as is
+        List<byte[]> services = new ArrayList<>(registry.size());
+        long serviceBytes = 0;
+        for (int s = 0; s < registry.size(); s++) {
+            byte[] encoded = registry.name(s).getBytes(StandardCharsets.UTF_8);
+            services.add(encoded);
+            serviceBytes += 4 + encoded.length;
+        }
+        serviceBytes = align(serviceBytes);
+
+        // Encode names and size the remaining sections
+        byte[][] names = new byte[n][];
+        int rankCount = 0;
+        long nameBytes = 0;
+        boolean positional = true;
+        for (int v = 0; v < n; v++) {
+            CompactVolunteer volunteer = volunteers.get(v);
+            for (int r = 0; r < volunteer.rankCount(); r++) {
+                positional &= volunteer.priority(r) == r + 1;
+            }
+            rankCount += volunteer.rankCount();
+            if (volunteer.getName() != null) {
+                names[v] = volunteer.getName().getBytes(StandardCharsets.UTF_8);
+                nameBytes += names[v].length;
+            }
+        }
+
+        long size = (long) HEADER_BYTES + serviceBytes
+                + 4L * n + 4L * (n + 1) + 4L * n
+                + align(2L * rankCount) + (positional ? 0 : 4L * rankCount)
+                + nameBytes + 4;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot too large for a single mapping: " + size + " bytes");
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+            buffer.putInt(MAGIC);
+            buffer.putInt(positional ? 0 : FLAG_PRIORITIES);
+            buffer.putLong(snapshot.getVersion());
+            buffer.putInt(n);
+            buffer.putInt(services.size());
+            buffer.putInt(rankCount);
+            buffer.putInt((int) nameBytes); // Bounded by the size check above
+            buffer.putInt(0); // Reserved
+
+            for (byte[] service : services) {
+                buffer.putInt(service.length);
+                buffer.put(service);
+            }
+            pad(buffer);
+
+            for (CompactVolunteer volunteer : volunteers) {
+                buffer.putInt(volunteer.getId());
+            }
+            int offset = 0;
+            for (CompactVolunteer volunteer : volunteers) {
+                buffer.putInt(offset);
+                offset += volunteer.rankCount();
+            }
+            buffer.putInt(offset);
+            for (byte[] name : names) {
+                buffer.putInt(name == null ? -1 : name.length);
+            }
+
+            for (CompactVolunteer volunteer : volunteers) {
+                for (int r = 0; r < volunteer.rankCount(); r++) {
+                    buffer.putShort((short) volunteer.serviceId(r));
+                }
+            }
+            pad(buffer);
+            if (!positional) {
+                for (CompactVolunteer volunteer : volunteers) {
+                    for (int r = 0; r < volunteer.rankCount(); r++) {
+                        buffer.putInt(volunteer.priority(r));
+                    }
+                }
+            }
+
+            for (byte[] name : names) {
+                if (name != null) {
+                    buffer.put(name);
+                }
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().flip());
+            buffer.putInt((int) crc.getValue());
+            buffer.force();
+        }
+    }
+
+    /**
+     * Maps {@code path} and passes every stored volunteer to {@code sink}, as a record whose service IDs
+     * are those of {@code registry}; service names new to the registry are registered.
+     *
+     * @return store version the snapshot was taken at
+     */
+    static long read(Path path, ServiceRegistry registry, Consumer<CompactVolunteer> sink) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES + 4 || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a preference snapshot: " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); // Stays valid after close
+        }
+
+        int end = buffer.limit() - 4;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().limit(end));
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(end) != (int) crc.getValue()) {
+            throw new IOException("Corrupt preference snapshot: " + path);
+        }
+
+        try {
+            boolean positional = (buffer.getInt(4) & FLAG_PRIORITIES) == 0;
+            long version = buffer.getLong(8);
+            int n = buffer.getInt(16);
+            int serviceCount = buffer.getInt(20);
+            int rankCount = buffer.getInt(24);
+            buffer.position(HEADER_BYTES);
+
+            short[] serviceIds = new short[serviceCount]; // File service index -> registry ID
+            for (int s = 0; s < serviceCount; s++) {
+                byte[] encoded = new byte[buffer.getInt()];
+                buffer.get(encoded);
+                serviceIds[s] = (short) registry.intern(new String(encoded, StandardCharsets.UTF_8));
+            }
+            buffer.position(align(buffer.position()));
+
+            int[] ids = ints(buffer, n);
+            int[] prefStart = ints(buffer, n + 1);
+            int[] nameLength = ints(buffer, n);
+            short[] ranks = new short[rankCount];
+            ShortBuffer shorts = buffer.asShortBuffer();
+            shorts.get(ranks);
+            buffer.position(buffer.position() + align(2 * rankCount));
+            int[] priorities = positional ? null : ints(buffer, rankCount);
+
+            for (int v = 0; v < n; v++) {
+                String name = null;
+                if (nameLength[v] >= 0) {
+                    byte[] encoded = new byte[nameLength[v]];
+                    buffer.get(encoded);
+                    name = new String(encoded, StandardCharsets.UTF_8);
+                }
+
+                short[] ranked = Arrays.copyOfRange(ranks, prefStart[v], prefStart[v + 1]);
+                for (int r = 0; r < ranked.length; r++) {
+                    ranked[r] = ranked[r] < 0 ? ServiceRegistry.NONE : serviceIds[ranked[r]];
+                }
+                int[] explicit = positional ? null : Arrays.copyOfRange(priorities, prefStart[v], prefStart[v + 1]);
+                sink.accept(CompactVolunteer.of(ids[v], name, ranked, explicit));
+            }
+            return version;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("Corrupt preference snapshot: " + path, e); // Passed the checksum but does not parse
+        }
+    }
+
+    /**
+     * Bulk-copies {@code count} ints from the buffer's position and advances past them.
+     */
+    private static int[] ints(ByteBuffer buffer, int count) {
+        int[] result = new int[count];
+        IntBuffer view = buffer.asIntBuffer();
+        view.get(result);
+        buffer.position(buffer.position() + 4 * count);
+        return result;
+    }
+
+    private static void pad(ByteBuffer buffer) {
+        while ((buffer.position() & 3) != 0) {
+            buffer.put((byte) 0);
+        }
+    }
+
+    private static int align(int bytes) {
+        return (bytes + 3) & ~3;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 3) & ~3L;
+    }
+}
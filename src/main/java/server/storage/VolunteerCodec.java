@@ -0,0 +1,62 @@
+package server.storage;
+
+import model.Preference;
+import model.Volunteer;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary encoding of a {@link Volunteer} shared by the write-ahead log and snapshot files.
+ * Layout: id, name, preference count, then (service name, priority) per preference.
+ * Strings are written as a presence flag followed by modified UTF-8, so nulls survive a round trip.
+ */
+final class VolunteerCodec {
+
+    private VolunteerCodec() {
+    }
+
+    static void write(DataOutput out, Volunteer volunteer) throws IOException {
+        out.writeInt(volunteer.getId());
+        writeString(out, volunteer.getName());
+
+        List<Preference> prefs = volunteer.getPreferences();
+        out.writeInt(prefs == null ? 0 : prefs.size());
+        if (prefs != null) {
+            for (Preference p : prefs) {
+                writeString(out, p.getServiceName());
+                out.writeInt(p.getPriority());
+            }
+        }
+    }
+
+    static Volunteer read(DataInput in) throws IOException {
+        int id = in.readInt();
+        String name = readString(in);
+
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Negative preference count " + count);
+        }
+        List<Preference> prefs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String service = readString(in);
+            prefs.add(new Preference(service, in.readInt()));
+        }
+        return new Volunteer(id, name, prefs);
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
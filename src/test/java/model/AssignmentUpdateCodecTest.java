@@ -0,0 +1,122 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssignmentUpdateCodecTest {
+
+    private static AssignmentUpdate roundTrip(AssignmentUpdate update) {
+        return AssignmentUpdateCodec.decode(ByteBuffer.wrap(AssignmentUpdateCodec.encode(update)));
+    }
+
+    @Test
+    void roundTripsServiceNamesLongerThanAShort() {
+        String name = "Service " + "é".repeat(20_000); // 40000+ UTF-8 bytes
+        AssignmentUpdate decoded = roundTrip(new AssignmentUpdate(AssignmentUpdate.FULL, 5, null,
+                List.of(new Assignment(1, name, 3)), null));
+
+        assertEquals(name, decoded.getAssignments().get(0).getServiceName());
+    }
+
+    @Test
+    void rejectsNameLengthBeyondTheData() {
+        byte[] encoded = AssignmentUpdateCodec.encode(new AssignmentUpdate(AssignmentUpdate.FULL, 5, null,
+                List.of(new Assignment(1, "Media", 3)), null));
+        ByteBuffer.wrap(encoded).putInt(13, Integer.MAX_VALUE); // Service name length
+
+        assertThrows(IllegalArgumentException.class, () -> AssignmentUpdateCodec.decode(ByteBuffer.wrap(encoded)));
+    }
+
+    @Test
+    void fullUpdateWithWholeCostsRoundTrips() {
+        AssignmentUpdate decoded = roundTrip(new AssignmentUpdate(AssignmentUpdate.FULL, 7, null,
+                List.of(new Assignment(1, "Media", 3), new Assignment(2, null, 0), new Assignment(3, "Media", -2)), null));
+
+        assertEquals(AssignmentUpdate.FULL, decoded.getType());
+        assertEquals(7, decoded.getVersion());
+        assertNull(decoded.getBaseVersion());
+        assertAssignment(decoded.getAssignments().get(0), 1, "Media", 3);
+        assertAssignment(decoded.getAssignments().get(1), 2, null, 0);
+        assertAssignment(decoded.getAssignments().get(2), 3, "Media", -2);
+    }
+
+    @Test
+    void fractionalCostsAreKeptExactly() {
+        AssignmentUpdate update = new AssignmentUpdate(AssignmentUpdate.FULL, 7, null,
+                List.of(new Assignment(1, "Media", 3), new Assignment(2, "Security", 2.5)), null);
+        AssignmentUpdate decoded = roundTrip(update);
+
+        assertAssignment(decoded.getAssignments().get(0), 1, "Media", 3);
+        assertAssignment(decoded.getAssignments().get(1), 2, "Security", 2.5);
+        // Whole costs are written as ints, so the same roster is smaller with them
+        AssignmentUpdate whole = new AssignmentUpdate(AssignmentUpdate.FULL, 7, null,
+                List.of(new Assignment(1, "Media", 3), new Assignment(2, "Security", 2)), null);
+        assertTrue(AssignmentUpdateCodec.encode(whole).length < AssignmentUpdateCodec.encode(update).length);
+    }
+
+    @Test
+    void costsBeyondIntRangeAreNotTruncated() {
+        AssignmentUpdate decoded = roundTrip(new AssignmentUpdate(AssignmentUpdate.FULL, 7, null,
+                List.of(new Assignment(1, "Media", 1e12)), null));
+
+        assertEquals(1e12, decoded.getAssignments().get(0).getCost());
+    }
+
+    @Test
+    void deltaRoundTripsBaseVersionAndRemovals() {
+        AssignmentUpdate decoded = roundTrip(new AssignmentUpdate(AssignmentUpdate.DELTA, 12, 10L,
+                List.of(new Assignment(4, "Medical", 1)), List.of(5, 6)));
+
+        assertEquals(AssignmentUpdate.DELTA, decoded.getType());
+        assertEquals(12, decoded.getVersion());
+        assertEquals(10L, decoded.getBaseVersion());
+        assertAssignment(decoded.getAssignments().get(0), 4, "Medical", 1);
+        assertEquals(List.of(5, 6), decoded.getRemoved());
+    }
+
+    @Test
+    void emptyDeltaRoundTrips() {
+        AssignmentUpdate decoded = roundTrip(new AssignmentUpdate(AssignmentUpdate.DELTA, 12, 11L, List.of(), List.of()));
+
+        assertTrue(decoded.getAssignments().isEmpty());
+        assertTrue(decoded.getRemoved().isEmpty());
+    }
+
+    @Test
+    void personalUpdateRoundTripsWithAndWithoutSummary() {
+        Map<String, Integer> counts = new TreeMap<>(Map.of("Media", 2, "Cleanup", 5));
+        AssignmentUpdate withSummary = roundTrip(new AssignmentUpdate(3, List.of(new Assignment(9, "Media", 2)), counts, 17.5));
+        AssignmentUpdate without = roundTrip(new AssignmentUpdate(4, List.of(), null, null));
+
+        assertEquals(AssignmentUpdate.PERSONAL, withSummary.getType());
+        assertAssignment(withSummary.getAssignments().get(0), 9, "Media", 2);
+        assertEquals(counts, withSummary.getServiceCounts());
+        assertEquals(17.5, withSummary.getTotalCost());
+        assertEquals(AssignmentUpdate.PERSONAL, without.getType());
+        assertTrue(without.getAssignments().isEmpty());
+        assertNull(without.getServiceCounts());
+        assertNull(without.getTotalCost());
+    }
+
+    @Test
+    void truncatedInputIsRejected() {
+        byte[] encoded = AssignmentUpdateCodec.encode(new AssignmentUpdate(AssignmentUpdate.DELTA, 12, 10L,
+                List.of(new Assignment(4, "Medical", 1)), List.of(5)));
+        for (int length = 0; length < encoded.length; length++) {
+            ByteBuffer truncated = ByteBuffer.wrap(encoded, 0, length);
+            assertThrows(IllegalArgumentException.class, () -> AssignmentUpdateCodec.decode(truncated));
+        }
+    }
+
+    private static void assertAssignment(Assignment a, int volunteerId, String service, double cost) {
+        assertEquals(volunteerId, a.getVolunteerId());
+        assertEquals(service, a.getServiceName());
+        assertEquals(cost, a.getCost());
+    }
+}
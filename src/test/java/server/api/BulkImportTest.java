@@ -0,0 +1,119 @@
+package server.api;
+
+import model.Volunteer;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkImportTest {
+
+    private final List<List<Volunteer>> batches = new ArrayList<>();
+
+    private BulkImport importing(String body, int batchSize) {
+        BulkImport bulk = new BulkImport(batchSize, Set.of("Media", "Security"), batches::add);
+        bulk.read(new StringReader(body));
+        return bulk;
+    }
+
+    private static String volunteer(int id) {
+        return "{\"id\":" + id + ",\"preferences\":[{\"serviceName\":\"Media\",\"priority\":1}]}";
+    }
+
+    private List<Integer> storedIds() {
+        List<Integer> ids = new ArrayList<>();
+        batches.forEach(batch -> batch.forEach(v -> ids.add(v.getId())));
+        return ids;
+    }
+
+    @Test
+    void importsArrayInBatches() {
+        BulkImport bulk = importing("[" + volunteer(1) + "," + volunteer(2) + "," + volunteer(3) + "]", 2);
+
+        assertFalse(bulk.isMalformed());
+        assertEquals(3, bulk.getAccepted());
+        assertEquals(List.of(1, 2, 3), storedIds());
+        assertEquals(2, batches.size());
+    }
+
+    @Test
+    void skipsInvalidRecordsInNdjson() {
+        BulkImport bulk = importing(volunteer(1) + "\n{\"id\":2}\n[]\n" + volunteer(4) + "\n", 10);
+
+        assertFalse(bulk.isMalformed());
+        assertEquals(2, bulk.getAccepted());
+        assertEquals(2, bulk.getRejected());
+        assertEquals(List.of(1, 4), storedIds());
+    }
+
+    @Test
+    void strayCloseBraceStopsImportButKeepsEarlierRecords() {
+        BulkImport bulk = importing(volunteer(1) + "\n}\n" + volunteer(2), 1000);
+
+        assertTrue(bulk.isMalformed());
+        assertEquals(List.of(1), storedIds());
+    }
+
+    @Test
+    void truncatedInputKeepsEarlierRecords() {
+        String body = "[" + volunteer(1) + "," + volunteer(2) + "," + volunteer(3);
+        BulkImport bulk = importing(body.substring(0, body.length() - 10), 1000);
+
+        assertTrue(bulk.isMalformed());
+        assertEquals(List.of(1, 2), storedIds());
+    }
+
+    @Test
+    void garbageInputIsMalformed() {
+        BulkImport bulk = importing("\u0000\u0001 not json at all {{{", 1000);
+
+        assertTrue(bulk.isMalformed());
+        assertEquals(0, bulk.getAccepted());
+        assertTrue(batches.isEmpty());
+    }
+
+    @Test
+    void emptyBodyIsMalformed() {
+        BulkImport bulk = importing("", 1000);
+
+        assertTrue(bulk.isMalformed());
+        assertTrue(batches.isEmpty());
+    }
+
+    @Test
+    void rejectsUnknownServicesAndLongNames() {
+        String unknown = "{\"id\":2,\"preferences\":[{\"serviceName\":\"Fresh-" + "x".repeat(100) + "\",\"priority\":1}]}";
+        String longName = "{\"id\":3,\"name\":\"" + "n".repeat(201) + "\",\"preferences\":[]}";
+        BulkImport bulk = importing(volunteer(1) + "\n" + unknown + "\n" + longName, 10);
+
+        assertEquals(1, bulk.getAccepted());
+        assertEquals(2, bulk.getRejected());
+        assertEquals(List.of(1), storedIds());
+        @SuppressWarnings("unchecked")
+        List<String> errors = (List<String>) bulk.result().get("errors");
+        assertTrue(errors.get(0).contains("unknown service"));
+        assertTrue(errors.get(0).length() < 100); // Client-supplied name is shortened
+    }
+
+    @Test
+    void failedBatchIsNeitherRetriedNorCounted() {
+        List<List<Volunteer>> offered = new ArrayList<>();
+        BulkImport bulk = new BulkImport(2, Set.of("Media"), batch -> {
+            offered.add(batch);
+            if (offered.size() == 2) {
+                throw new IllegalStateException("journal failed");
+            }
+        });
+        String body = "[" + volunteer(1) + "," + volunteer(2) + "," + volunteer(3) + "," + volunteer(4) + "," + volunteer(5) + "]";
+
+        assertThrows(IllegalStateException.class, () -> bulk.read(new StringReader(body)));
+        assertEquals(2, offered.size()); // The failed batch is not passed on a second time
+        assertEquals(List.of(3, 4), List.of(offered.get(1).get(0).getId(), offered.get(1).get(1).getId()));
+        assertEquals(2, bulk.getAccepted());
+        assertFalse(bulk.isMalformed());
+    }
+}
@@ -0,0 +1,77 @@
+package server.core;
+
+import model.Preference;
+import model.Volunteer;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssignmentProblemTest {
+
+    private static final Map<String, Integer> CAPACITIES = new LinkedHashMap<>();
+
+    static {
+        CAPACITIES.put("Media", 2);
+        CAPACITIES.put("Security", 1);
+    }
+
+    private static Volunteer volunteer(int id, String... services) {
+        Preference[] prefs = new Preference[services.length];
+        for (int i = 0; i < services.length; i++) {
+            prefs[i] = new Preference(services[i], i + 1);
+        }
+        return new Volunteer(id, "V" + id, List.of(prefs));
+    }
+
+    @Test
+    void mapsVolunteersAndServicesToDenseIndices() {
+        AssignmentProblem problem = new AssignmentProblem(CAPACITIES,
+                List.of(volunteer(17, "Security", "Outside"), volunteer(3, "Media")));
+
+        assertEquals(2, problem.volunteerCount());
+        assertEquals(17, problem.volunteerId(0));
+        assertEquals(3, problem.volunteerId(1));
+
+        // Catalog services first, in catalog order, then services only volunteers named, without room
+        assertEquals(2, problem.catalogSize());
+        assertEquals(3, problem.serviceCount());
+        assertEquals("Media", problem.serviceName(0));
+        assertEquals("Security", problem.serviceName(1));
+        assertEquals("Outside", problem.serviceName(2));
+        assertEquals(0, problem.capacity(2));
+        assertEquals(2, problem.serviceIndex("Outside"));
+        assertEquals(AssignmentProblem.UNASSIGNED, problem.serviceIndex("Unknown"));
+        assertNull(problem.serviceName(AssignmentProblem.UNASSIGNED));
+        assertArrayEquals(new int[]{1, 2}, problem.preferences(0));
+    }
+
+    @Test
+    void costTableFollowsRanks() {
+        AssignmentProblem problem = new AssignmentProblem(CAPACITIES,
+                List.of(volunteer(1, "Security", "Outside", "Media"), volunteer(2, "Media", "Media"), volunteer(3)));
+
+        // Rank i costs i * i; anything unlisted, including no service, costs 10 * (list length)^2
+        assertEquals(0, problem.cost(0, 1));
+        assertEquals(1, problem.cost(0, 2));
+        assertEquals(4, problem.cost(0, 0));
+        assertEquals(90, problem.cost(0, AssignmentProblem.UNASSIGNED));
+
+        assertEquals(0, problem.cost(1, 0)); // A repeated service keeps its best rank
+        assertEquals(40, problem.cost(1, 1));
+
+        assertEquals(0, problem.cost(2, 0)); // No preferences: every choice is equally fine
+        assertEquals(0, problem.cost(2, AssignmentProblem.UNASSIGNED));
+    }
+
+    @Test
+    void lowerBoundIsSumOfCheapestChoices() {
+        AssignmentProblem problem = new AssignmentProblem(CAPACITIES,
+                List.of(volunteer(1, "Security"), volunteer(2, "Security", "Media"), volunteer(3, "Outside")));
+
+        assertEquals(0, problem.lowerBound()); // Capacities are ignored: both could have Security
+    }
+}
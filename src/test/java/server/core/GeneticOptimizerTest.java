@@ -0,0 +1,281 @@
+package server.core;
+
+import model.Assignment;
+import model.Preference;
+import model.Volunteer;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeneticOptimizerTest {
+
+    private static final String[] SERVICES = {"Media", "Security", "Medical", "Cleanup", "Catering"};
+
+    // 80 places for 100 volunteers, with Media and Security in high demand, so capacities bind
+    private static final Map<String, Integer> CAPACITIES = new LinkedHashMap<>();
+
+    static {
+        CAPACITIES.put("Media", 10);
+        CAPACITIES.put("Security", 10);
+        CAPACITIES.put("Medical", 20);
+        CAPACITIES.put("Cleanup", 20);
+        CAPACITIES.put("Catering", 20);
+    }
+
+    private static List<Volunteer> volunteers(long seed, int count) {
+        Random random = new Random(seed);
+        List<Volunteer> volunteers = new ArrayList<>();
+        for (int id = 1; id <= count; id++) {
+            List<Preference> prefs = new ArrayList<>();
+            for (int rank = 0, n = 1 + random.nextInt(3); rank < n; rank++) {
+                // Skewed towards the first services
+                prefs.add(new Preference(SERVICES[Math.min(random.nextInt(3) + random.nextInt(3), SERVICES.length - 1)], rank + 1));
+            }
+            volunteers.add(new Volunteer(id, "V" + id, prefs));
+        }
+        return volunteers;
+    }
+
+    private static GeneticOptimizer optimizer(long seed) {
+        GeneticOptimizer optimizer = new GeneticOptimizer(CAPACITIES);
+        optimizer.setSeed(seed);
+        optimizer.setMaxGenerations(30);
+        optimizer.setPopulationSize(20);
+        return optimizer;
+    }
+
+    private static double cost(List<Assignment> assignments) {
+        double total = 0;
+        for (Assignment a : assignments) {
+            total += a.getCost();
+        }
+        return total;
+    }
+
+    /**
+     * Checks that no service is over capacity, every volunteer has exactly one assignment in input order,
+     * and every reported cost is the volunteer's actual cost for that service.
+     */
+    private static void assertValid(List<Assignment> assignments, List<Volunteer> volunteers) {
+        assertEquals(volunteers.size(), assignments.size());
+        AssignmentProblem problem = new AssignmentProblem(CAPACITIES, volunteers);
+        Map<String, Integer> load = new HashMap<>();
+        for (int v = 0; v < assignments.size(); v++) {
+            Assignment a = assignments.get(v);
+            assertEquals(volunteers.get(v).getId(), a.getVolunteerId());
+            assertEquals(problem.cost(v, problem.serviceIndex(a.getServiceName())), a.getCost());
+            if (a.getServiceName() != null) {
+                load.merge(a.getServiceName(), 1, Integer::sum);
+            }
+        }
+        load.forEach((service, count) ->
+                assertTrue(count <= CAPACITIES.getOrDefault(service, 0), service + " over capacity: " + count));
+    }
+
+    @Test
+    void resultsRespectCapacities() {
+        List<Volunteer> volunteers = volunteers(1, 100);
+        for (long seed = 0; seed < 5; seed++) {
+            assertValid(optimizer(seed).optimize(volunteers), volunteers);
+        }
+    }
+
+    @Test
+    void incrementalCostAndLoadMatchRecomputation() {
+        List<Volunteer> volunteers = volunteers(2, 100);
+        AssignmentProblem problem = new AssignmentProblem(CAPACITIES, volunteers);
+        Random random = new Random(3);
+        int[] genes = new int[problem.volunteerCount()];
+        Arrays.fill(genes, AssignmentProblem.UNASSIGNED);
+        Individual individual = new Individual(genes, problem);
+
+        for (int step = 0; step < 1000; step++) {
+            int s = random.nextInt(problem.serviceCount() + 1) - 1; // Includes unassigned
+            individual.move(random.nextInt(problem.volunteerCount()), s, problem);
+
+            Individual recomputed = new Individual(individual.genes().clone(), problem);
+            assertEquals(recomputed.cost(), individual.cost(), 1e-9);
+            for (int service = 0; service < problem.serviceCount(); service++) {
+                assertEquals(recomputed.load(service), individual.load(service));
+            }
+        }
+    }
+
+    @Test
+    void copiesCacheFitnessIndependently() {
+        List<Volunteer> volunteers = volunteers(3, 20);
+        AssignmentProblem problem = new AssignmentProblem(CAPACITIES, volunteers);
+        int[] genes = new int[problem.volunteerCount()];
+        Arrays.fill(genes, AssignmentProblem.UNASSIGNED);
+        Individual original = new Individual(genes, problem);
+        double cost = original.cost();
+
+        Individual copy = new Individual(original);
+        copy.move(0, problem.preferences(0)[0], problem);
+
+        assertEquals(cost, original.cost());
+        assertEquals(AssignmentProblem.UNASSIGNED, original.gene(0));
+        assertTrue(copy.cost() < cost);
+        assertEquals(1, copy.load(problem.preferences(0)[0]));
+        assertEquals(0, original.load(problem.preferences(0)[0]));
+    }
+
+    @Test
+    void overloadedIndividualsCostTheMost() {
+        List<Volunteer> volunteers = volunteers(3, 20);
+        AssignmentProblem problem = new AssignmentProblem(CAPACITIES, volunteers);
+        int[] genes = new int[problem.volunteerCount()]; // All on Media, capacity 10
+
+        Individual individual = new Individual(genes, problem);
+        assertEquals(Double.MAX_VALUE, individual.cost());
+
+        for (int v = 0; v < 10; v++) {
+            individual.move(v, AssignmentProblem.UNASSIGNED, problem);
+        }
+        assertTrue(individual.cost() < Double.MAX_VALUE);
+    }
+
+    @Test
+    void seededRunIsIndependentOfThreadCount() {
+        List<Volunteer> volunteers = volunteers(4, 100);
+        GeneticOptimizer single = optimizer(42);
+        single.setThreads(1);
+        GeneticOptimizer parallel = optimizer(42);
+        parallel.setThreads(4);
+
+        List<Assignment> expected = single.optimize(volunteers);
+
+        assertEquals(services(expected), services(parallel.optimize(volunteers)));
+        assertEquals(services(expected), services(single.optimize(volunteers))); // Repeatable with one thread too
+        assertNotEquals(services(expected), services(optimizer(43).optimize(volunteers))); // The seed does matter
+    }
+
+    @Test
+    void seededIslandRunIsIndependentOfThreadCount() {
+        List<Volunteer> volunteers = volunteers(5, 100);
+        for (MigrationTopology topology : MigrationTopology.values()) {
+            List<String> expected = null;
+            for (int threads : new int[]{1, 2, 4}) {
+                GeneticOptimizer optimizer = optimizer(42);
+                optimizer.setIslands(4);
+                optimizer.setMigrationInterval(5);
+                optimizer.setMigrationTopology(topology);
+                optimizer.setThreads(threads);
+                List<Assignment> result = optimizer.optimize(volunteers);
+
+                assertValid(result, volunteers);
+                if (expected == null) {
+                    expected = services(result);
+                } else {
+                    assertEquals(expected, services(result), topology + " with " + threads + " threads");
+                }
+            }
+        }
+    }
+
+    @Test
+    void timeBudgetEndsLongRun() {
+        List<Volunteer> volunteers = volunteers(6, 100);
+        GeneticOptimizer optimizer = optimizer(1);
+        optimizer.setMaxGenerations(1_000_000);
+        optimizer.setTimeBudgetMillis(200);
+
+        List<Assignment> result = assertTimeout(Duration.ofSeconds(10), () -> optimizer.optimize(volunteers));
+
+        assertValid(result, volunteers);
+    }
+
+    @Test
+    void stallLimitEndsLongRun() {
+        List<Volunteer> volunteers = volunteers(7, 100);
+        for (int islands : new int[]{1, 3}) {
+            GeneticOptimizer optimizer = optimizer(1);
+            optimizer.setMaxGenerations(1_000_000);
+            optimizer.setIslands(islands);
+            optimizer.setStallGenerations(20);
+
+            List<Assignment> result = assertTimeout(Duration.ofSeconds(10), () -> optimizer.optimize(volunteers));
+
+            assertValid(result, volunteers);
+        }
+    }
+
+    @Test
+    void runStopsAtLowerBound() {
+        // Everyone fits their first choice, so the bound is 0 and reached in the initial population
+        List<Volunteer> volunteers = new ArrayList<>();
+        for (int id = 1; id <= 10; id++) {
+            volunteers.add(new Volunteer(id, "V" + id, List.of(new Preference("Medical", 1))));
+        }
+        GeneticOptimizer optimizer = optimizer(1);
+        optimizer.setMaxGenerations(Integer.MAX_VALUE);
+
+        List<Assignment> result = assertTimeout(Duration.ofSeconds(10), () -> optimizer.optimize(volunteers));
+
+        assertEquals(0, cost(result));
+    }
+
+    @Test
+    void warmStartIsNoWorseThanItsRoster() {
+        List<Volunteer> volunteers = volunteers(8, 100);
+        PreferenceStore store = new PreferenceStore();
+        store.addOrUpdateAll(volunteers);
+        PreferenceSnapshot snapshot = store.snapshot();
+
+        List<Assignment> exact = new MinCostFlowOptimizer(CAPACITIES).optimize(snapshot.getVolunteers());
+        GeneticOptimizer quick = optimizer(3);
+        quick.setMaxGenerations(1);
+        List<Assignment> rough = quick.optimize(snapshot.getVolunteers());
+
+        for (List<Assignment> previous : List.of(exact, rough)) {
+            for (int islands : new int[]{1, 3}) {
+                for (int population : new int[]{4, 20}) { // Below and above ten, where the elite share rounds to zero
+                    GeneticOptimizer optimizer = optimizer(9);
+                    optimizer.setPopulationSize(population);
+                    optimizer.setIslands(islands);
+                    optimizer.setInitialRoster(new Roster(previous, snapshot, 0));
+                    List<Assignment> result = optimizer.optimize(snapshot.getVolunteers());
+
+                    assertValid(result, snapshot.getVolunteers());
+                    assertTrue(cost(result) <= cost(previous),
+                            cost(result) + " > " + cost(previous) + " with " + islands + " islands, population " + population);
+                }
+            }
+        }
+    }
+
+    @Test
+    void warmStartKeepsUnchangedVolunteers() {
+        List<Volunteer> volunteers = volunteers(10, 100);
+        PreferenceStore store = new PreferenceStore();
+        store.addOrUpdateAll(volunteers);
+        PreferenceSnapshot before = store.snapshot();
+        List<Assignment> previous = new MinCostFlowOptimizer(CAPACITIES).optimize(before.getVolunteers());
+
+        // No generations: the result is the warm-start individual itself
+        GeneticOptimizer optimizer = optimizer(1);
+        optimizer.setMaxGenerations(0);
+        optimizer.setPopulationSize(2);
+        optimizer.setInitialRoster(new Roster(previous, before, 0));
+        List<Assignment> result = optimizer.optimize(before.getVolunteers());
+
+        assertEquals(services(previous), services(result));
+    }
+
+    private static List<String> services(List<Assignment> assignments) {
+        List<String> services = new ArrayList<>(assignments.size());
+        for (Assignment a : assignments) {
+            services.add(a.getVolunteerId() + ":" + a.getServiceName());
+        }
+        return services;
+    }
+}
@@ -0,0 +1,99 @@
+package server.core;
+
+import model.Preference;
+import model.Volunteer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalSearchTest {
+
+    private static final String[] SERVICES = {"Media", "Security", "Medical", "Cleanup"};
+
+    private static AssignmentProblem problem(long seed) {
+        Random random = new Random(seed);
+        Map<String, Integer> capacities = new LinkedHashMap<>();
+        for (String service : SERVICES) {
+            capacities.put(service, 5 + random.nextInt(10));
+        }
+        List<Volunteer> volunteers = new ArrayList<>();
+        for (int id = 1; id <= 60; id++) {
+            List<Preference> prefs = new ArrayList<>();
+            for (int rank = 0, n = 1 + random.nextInt(4); rank < n; rank++) {
+                prefs.add(new Preference(SERVICES[random.nextInt(SERVICES.length)], rank + 1));
+            }
+            volunteers.add(new Volunteer(id, "V" + id, prefs));
+        }
+        return new AssignmentProblem(capacities, volunteers);
+    }
+
+    /**
+     * A feasible but poor start: volunteers fill the services in order, the rest stay unassigned.
+     */
+    private static Individual poorStart(AssignmentProblem problem) {
+        int[] genes = new int[problem.volunteerCount()];
+        Arrays.fill(genes, AssignmentProblem.UNASSIGNED);
+        int s = 0;
+        int[] load = new int[problem.serviceCount()];
+        for (int v = 0; v < genes.length; v++) {
+            while (s < problem.serviceCount() && load[s] == problem.capacity(s)) {
+                s++;
+            }
+            if (s == problem.serviceCount()) break;
+            genes[v] = s;
+            load[s]++;
+        }
+        return new Individual(genes, problem);
+    }
+
+    @Test
+    void reachesLocalOptimumForMovesAndSwaps() {
+        for (long seed = 0; seed < 20; seed++) {
+            AssignmentProblem problem = problem(seed);
+            Individual individual = poorStart(problem);
+            double before = individual.cost();
+
+            long gained = new LocalSearch(problem).improve(individual, 1000);
+
+            assertEquals(before - gained, individual.cost(), 1e-9);
+            assertNotEquals(Double.MAX_VALUE, individual.cost()); // Still within capacity
+            int n = problem.volunteerCount();
+            for (int v = 0; v < n; v++) {
+                int here = problem.cost(v, individual.gene(v));
+                for (int s = 0; s < problem.serviceCount(); s++) {
+                    if (s != individual.gene(v) && individual.load(s) < problem.capacity(s)) {
+                        assertTrue(problem.cost(v, s) >= here, "seed " + seed + ": volunteer " + v + " could move to " + s);
+                    }
+                }
+                for (int w = v + 1; w < n; w++) {
+                    int sv = individual.gene(v);
+                    int sw = individual.gene(w);
+                    if (sv == sw) continue;
+                    assertTrue(problem.cost(v, sw) + problem.cost(w, sv) >= here + problem.cost(w, sw),
+                            "seed " + seed + ": volunteers " + v + " and " + w + " could swap");
+                }
+            }
+        }
+    }
+
+    @Test
+    void stopsAfterMaxPasses() {
+        AssignmentProblem problem = problem(1);
+        Individual individual = poorStart(problem);
+        Individual unlimited = new Individual(individual);
+
+        long onePass = new LocalSearch(problem).improve(individual, 1);
+        long all = new LocalSearch(problem).improve(unlimited, 1000);
+
+        assertTrue(onePass > 0);
+        assertTrue(onePass <= all);
+        assertEquals(0, new LocalSearch(problem).improve(unlimited, 1000)); // Nothing left at a local optimum
+    }
+}
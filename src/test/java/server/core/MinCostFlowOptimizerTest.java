@@ -0,0 +1,81 @@
+package server.core;
+
+import model.Assignment;
+import model.Preference;
+import model.Volunteer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinCostFlowOptimizerTest {
+
+    private static final String[] SERVICES = {"Media", "Security", "Medical", "Unlisted"}; // The last is not in the catalog
+
+    @Test
+    void matchesBruteForceOnSmallInstances() {
+        Random random = new Random(7);
+        for (int instance = 0; instance < 300; instance++) {
+            Map<String, Integer> capacities = new LinkedHashMap<>();
+            for (int s = 0; s < 3; s++) {
+                capacities.put(SERVICES[s], random.nextInt(3));
+            }
+            List<Volunteer> volunteers = new ArrayList<>();
+            for (int id = 1, n = 1 + random.nextInt(6); id <= n; id++) {
+                List<Preference> prefs = new ArrayList<>();
+                for (int rank = 0, count = random.nextInt(4); rank < count; rank++) {
+                    prefs.add(new Preference(SERVICES[random.nextInt(SERVICES.length)], rank + 1));
+                }
+                volunteers.add(new Volunteer(id, "V" + id, prefs));
+            }
+
+            List<Assignment> result = new MinCostFlowOptimizer(capacities).optimize(volunteers);
+
+            AssignmentProblem problem = new AssignmentProblem(capacities, volunteers);
+            assertEquals(volunteers.size(), result.size());
+            assertFeasible(result, capacities);
+            assertEquals(bruteForce(problem, new int[problem.serviceCount()], 0), cost(result),
+                    "instance " + instance + ": " + capacities + " " + volunteers);
+        }
+    }
+
+    /**
+     * Cheapest total cost over every capacity-respecting choice for volunteers {@code v} onwards.
+     */
+    private static long bruteForce(AssignmentProblem problem, int[] load, int v) {
+        if (v == problem.volunteerCount()) return 0;
+        long best = problem.cost(v, AssignmentProblem.UNASSIGNED) + bruteForce(problem, load, v + 1);
+        for (int s = 0; s < problem.serviceCount(); s++) {
+            if (load[s] == problem.capacity(s)) continue;
+            load[s]++;
+            best = Math.min(best, problem.cost(v, s) + bruteForce(problem, load, v + 1));
+            load[s]--;
+        }
+        return best;
+    }
+
+    private static long cost(List<Assignment> assignments) {
+        long total = 0;
+        for (Assignment a : assignments) {
+            total += (long) a.getCost();
+        }
+        return total;
+    }
+
+    private static void assertFeasible(List<Assignment> assignments, Map<String, Integer> capacities) {
+        Map<String, Integer> load = new HashMap<>();
+        for (Assignment a : assignments) {
+            if (a.getServiceName() != null) {
+                load.merge(a.getServiceName(), 1, Integer::sum);
+            }
+        }
+        load.forEach((service, count) ->
+                assertTrue(count <= capacities.getOrDefault(service, 0), service + " over capacity: " + count));
+    }
+}
@@ -0,0 +1,63 @@
+package server.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimizerSettingsTest {
+
+    private static final Map<String, Integer> CAPACITIES = Map.of("Media", 2);
+
+    @Test
+    void rejectsValuesAboveTheLimits() {
+        OptimizerSettings threads = new OptimizerSettings();
+        threads.setThreads(100_000);
+        OptimizerSettings population = new OptimizerSettings();
+        population.setPopulation(OptimizerSettings.MAX_POPULATION + 1);
+        OptimizerSettings islands = new OptimizerSettings();
+        islands.setPopulation(OptimizerSettings.MAX_POPULATION / 2);
+        islands.setIslands(3);
+        OptimizerSettings generations = new OptimizerSettings();
+        generations.setGenerations(Integer.MAX_VALUE);
+        OptimizerSettings timeBudget = new OptimizerSettings();
+        timeBudget.setTimeBudgetMillis(Long.MAX_VALUE / 1000); // Would overflow once converted to nanoseconds
+
+        assertThrows(IllegalArgumentException.class, () -> threads.createOptimizer(CAPACITIES));
+        assertThrows(IllegalArgumentException.class, () -> population.createOptimizer(CAPACITIES));
+        assertThrows(IllegalArgumentException.class, () -> islands.createOptimizer(CAPACITIES));
+        assertThrows(IllegalArgumentException.class, () -> generations.createOptimizer(CAPACITIES));
+        assertThrows(IllegalArgumentException.class, () -> timeBudget.createOptimizer(CAPACITIES));
+    }
+
+    @Test
+    void acceptsValuesAtTheLimits() {
+        OptimizerSettings settings = new OptimizerSettings();
+        settings.setThreads(OptimizerSettings.MAX_THREADS);
+        settings.setPopulation(OptimizerSettings.MAX_POPULATION);
+        settings.setGenerations(OptimizerSettings.MAX_GENERATIONS);
+        settings.setTimeBudgetMillis(OptimizerSettings.MAX_TIME_BUDGET_MILLIS);
+
+        assertNotNull(settings.createOptimizer(CAPACITIES));
+    }
+
+    @Test
+    void defaultThreadCountDoesNotChangeTheSettings() {
+        OptimizerSettings settings = new OptimizerSettings();
+        OptimizerSettings same = new OptimizerSettings();
+
+        settings.createOptimizer(CAPACITIES);
+
+        assertNull(settings.getThreads());
+        assertEquals(same, settings); // Still coalesces with an identical request
+    }
+
+    @Test
+    void rejectsValuesBelowTheLimits() {
+        OptimizerSettings settings = new OptimizerSettings();
+        settings.setThreads(0);
+
+        assertThrows(IllegalArgumentException.class, () -> settings.createOptimizer(CAPACITIES));
+    }
+}
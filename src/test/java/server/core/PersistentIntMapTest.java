@@ -0,0 +1,98 @@
+package server.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentIntMapTest {
+
+    // Keys that agree in their low bits share trie slots down to the level where they first differ
+    private static final int[] COLLIDING = {1, 1 + 32, 1 + 32 * 32, 1 + (1 << 30), 1 | Integer.MIN_VALUE};
+
+    @Test
+    void keysSharingSlotsAreAllKept() {
+        PersistentIntMap<String> map = PersistentIntMap.empty();
+        for (int key : COLLIDING) {
+            map = map.put(key, "v" + key);
+        }
+
+        assertEquals(COLLIDING.length, map.size());
+        for (int key : COLLIDING) {
+            assertEquals("v" + key, map.get(key));
+        }
+        assertNull(map.get(1 + 64)); // Same first slot, absent
+        assertNull(map.get(0));
+    }
+
+    @Test
+    void putLeavesEarlierVersionsUnchanged() {
+        PersistentIntMap<String> before = PersistentIntMap.<String>empty().put(1, "a");
+        PersistentIntMap<String> after = before.put(1 + 32, "b").put(1, "c");
+
+        assertEquals("a", before.get(1));
+        assertNull(before.get(1 + 32));
+        assertEquals(1, before.size());
+        assertEquals("c", after.get(1));
+        assertEquals(2, after.size());
+    }
+
+    @Test
+    void removeCollapsesSharedSlots() {
+        PersistentIntMap<String> map = PersistentIntMap.empty();
+        for (int key : COLLIDING) {
+            map = map.put(key, "v" + key);
+        }
+        PersistentIntMap<String> full = map;
+
+        for (int i = 0; i < COLLIDING.length; i++) {
+            map = map.remove(COLLIDING[i]);
+            assertEquals(COLLIDING.length - i - 1, map.size());
+            assertNull(map.get(COLLIDING[i]));
+            for (int j = i + 1; j < COLLIDING.length; j++) {
+                assertEquals("v" + COLLIDING[j], map.get(COLLIDING[j]));
+            }
+        }
+        assertEquals(COLLIDING.length, full.size()); // Removal does not touch the original
+        assertEquals("v1", full.get(1));
+    }
+
+    @Test
+    void removingAnAbsentKeyReturnsTheSameMap() {
+        PersistentIntMap<String> map = PersistentIntMap.<String>empty().put(1, "a").put(33, "b");
+
+        assertSame(map, map.remove(65));
+        assertSame(map, map.remove(2));
+    }
+
+    @Test
+    void matchesHashMapUnderRandomUpdates() {
+        Random random = new Random(42);
+        Map<Integer, Integer> expected = new HashMap<>();
+        PersistentIntMap<Integer> map = PersistentIntMap.empty();
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(2000) * (random.nextBoolean() ? 1 : -1024);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, i);
+                map = map.put(key, i);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Integer, Integer> e : expected.entrySet()) {
+            assertEquals(e.getValue(), map.get(e.getKey()));
+        }
+        List<Integer> values = new ArrayList<>();
+        map.forEachValue(values::add);
+        assertEquals(expected.size(), values.size());
+        assertTrue(values.containsAll(expected.values()));
+    }
+}
@@ -0,0 +1,89 @@
+package server.core;
+
+import model.Preference;
+import model.Volunteer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreferenceStoreTest {
+
+    private final PreferenceStore store = new PreferenceStore();
+
+    private static Volunteer volunteer(int id, String service) {
+        return new Volunteer(id, "V" + id, List.of(new Preference(service, 1)));
+    }
+
+    private String serviceOf(int id) {
+        Volunteer v = store.getVolunteerById(id);
+        return v == null ? null : v.getPreferences().get(0).getServiceName();
+    }
+
+    @Test
+    void revertRestoresReplacedAndRemovesAdded() {
+        store.addOrUpdatePreferences(volunteer(1, "Media"));
+        PreferenceStore.Write write = store.write(List.of(volunteer(1, "Security"), volunteer(2, "Medical")));
+        assertEquals("Security", serviceOf(1));
+
+        write.revert();
+
+        assertEquals("Media", serviceOf(1));
+        assertNull(serviceOf(2));
+        assertTrue(store.snapshot().getVersion() > write.getVersion());
+    }
+
+    @Test
+    void revertKeepsLaterWrites() {
+        PreferenceStore.Write write = store.write(List.of(volunteer(1, "Security"), volunteer(2, "Medical")));
+        store.addOrUpdatePreferences(volunteer(2, "Cleanup"));
+
+        write.revert();
+
+        assertNull(serviceOf(1));
+        assertEquals("Cleanup", serviceOf(2));
+    }
+
+    @Test
+    void revertUndoesRepeatedIds() {
+        store.addOrUpdatePreferences(volunteer(1, "Media"));
+        PreferenceStore.Write write = store.write(List.of(volunteer(1, "Security"), volunteer(1, "Medical")));
+        assertEquals("Medical", serviceOf(1));
+
+        write.revert();
+
+        assertEquals("Media", serviceOf(1));
+    }
+
+    @Test
+    void listenersAreCalledOncePerWrite() {
+        List<Long> versions = new ArrayList<>();
+        store.addChangeListener(versions::add);
+        List<Volunteer> batch = new ArrayList<>();
+        for (int id = 0; id < 1000; id++) {
+            batch.add(volunteer(id, "Media"));
+        }
+
+        long bulk = store.addOrUpdateAll(batch);
+        long single = store.addOrUpdatePreferences(volunteer(1, "Security"));
+
+        assertEquals(List.of(bulk, single), versions);
+    }
+
+    @Test
+    void listenersHearOfWritesOnlyWhenCommitted() {
+        List<Long> versions = new ArrayList<>();
+        store.addChangeListener(versions::add);
+
+        PreferenceStore.Write reverted = store.write(List.of(volunteer(1, "Media")));
+        reverted.revert();
+        PreferenceStore.Write committed = store.write(List.of(volunteer(2, "Security")));
+        assertTrue(versions.isEmpty());
+
+        committed.commit();
+
+        assertEquals(List.of(committed.getVersion()), versions);
+    }
+}
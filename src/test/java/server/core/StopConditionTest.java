@@ -0,0 +1,66 @@
+package server.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StopConditionTest {
+
+    @Test
+    void stopsAfterStallLimitWithoutImprovement() {
+        StopCondition stop = new StopCondition(0, 3, 0);
+
+        assertFalse(stop.record(10, 1));
+        assertFalse(stop.record(10, 1));
+        assertFalse(stop.record(9, 1)); // Improvement resets the count
+        assertFalse(stop.record(9, 2));
+        assertTrue(stop.record(9, 1));
+    }
+
+    @Test
+    void countsGenerationsPerRecord() {
+        StopCondition stop = new StopCondition(0, 10, 0);
+
+        assertFalse(stop.record(10, 10)); // First record is an improvement
+        assertTrue(stop.record(10, 10));  // One island epoch of ten generations without improvement
+    }
+
+    @Test
+    void stopsAtGoal() {
+        StopCondition stop = new StopCondition(0, 0, 5);
+
+        assertFalse(stop.record(6, 1));
+        assertTrue(stop.record(5, 1));
+    }
+
+    @Test
+    void neverStopsWithoutLimits() {
+        StopCondition stop = new StopCondition(0, 0, -1);
+
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(stop.record(10, 1));
+        }
+        assertFalse(stop.expired());
+    }
+
+    @Test
+    void expiresAfterTimeBudget() throws InterruptedException {
+        StopCondition stop = new StopCondition(1, 0, -1);
+        Thread.sleep(5);
+
+        assertTrue(stop.expired());
+        assertTrue(stop.record(10, 1));
+    }
+
+    @Test
+    void expiresWhenOwnerIsInterrupted() {
+        StopCondition stop = new StopCondition(0, 0, -1);
+        Thread.currentThread().interrupt();
+        try {
+            assertTrue(stop.expired());
+        } finally {
+            Thread.interrupted(); // Clear the flag for later tests
+        }
+        assertFalse(stop.expired());
+    }
+}
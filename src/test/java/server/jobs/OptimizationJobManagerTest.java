@@ -0,0 +1,90 @@
+package server.jobs;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import server.core.OptimizerSettings;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimizationJobManagerTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final OptimizationJobManager jobs = new OptimizationJobManager(settings -> {
+        release.await(); // Keeps the first job running so later ones wait
+        throw new IllegalStateException("no result needed");
+    }, roster -> { });
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        jobs.shutdown();
+    }
+
+    private static OptimizerSettings settings(int generations) {
+        OptimizerSettings settings = new OptimizerSettings();
+        settings.setGenerations(generations);
+        return settings;
+    }
+
+    @Test
+    void coalescesOnlyEqualSettings() {
+        OptimizationJob running = jobs.submit(settings(10));
+        OptimizationJob first = jobs.submit(settings(20));
+        OptimizationJob same = jobs.submit(settings(20));
+        OptimizationJob other = jobs.submit(settings(30));
+
+        assertNotSame(running, first);
+        assertSame(first, same);
+        assertNotSame(first, other);
+        assertEquals(settings(20), first.getSettings());
+        assertEquals(settings(30), other.getSettings());
+    }
+
+    @Test
+    void rejectsWhenTooManyDistinctJobsWait() {
+        jobs.submit(settings(0));
+        for (int i = 1; i <= 4; i++) {
+            jobs.submit(settings(i));
+        }
+
+        assertThrows(RejectedExecutionException.class, () -> jobs.submit(settings(5)));
+        assertNotNull(jobs.submit(settings(3))); // Still joins an equal waiting job
+    }
+
+    @Test
+    void cancelledWaitingJobFreesItsSlot() {
+        jobs.submit(settings(0));
+        OptimizationJob waiting = jobs.submit(settings(1));
+
+        assertTrue(jobs.cancel(waiting.getId()));
+        assertEquals(OptimizationJob.Status.CANCELLED, waiting.getStatus());
+        assertNotSame(waiting, jobs.submit(settings(1)));
+    }
+
+    @Test
+    void repairAndAutoRunsKeepTheirOwnSlots() {
+        jobs.submit(settings(0));
+        OptimizationJob request = jobs.submit(settings(2));
+        OptimizationJob repair = jobs.submit(OptimizationJob.Trigger.REPAIR, settings(2));
+        OptimizationJob auto = jobs.submit(OptimizationJob.Trigger.AUTO, settings(2));
+
+        assertNotSame(request, repair);
+        assertNotSame(repair, auto);
+        assertEquals(OptimizationJob.Trigger.REPAIR, repair.getTrigger());
+        assertSame(repair, jobs.submit(OptimizationJob.Trigger.REPAIR, settings(2)));
+        assertSame(request, jobs.submit(settings(2)));
+    }
+
+    @Test
+    void repairIsAcceptedWhenClientJobsAreFull() {
+        jobs.submit(settings(0));
+        for (int i = 1; i <= 4; i++) {
+            jobs.submit(settings(i));
+        }
+
+        assertEquals(OptimizationJob.Trigger.REPAIR, jobs.submit(OptimizationJob.Trigger.REPAIR, settings(9)).getTrigger());
+    }
+}
@@ -0,0 +1,208 @@
+package server.storage;
+
+import model.Preference;
+import model.Volunteer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import server.core.CompactVolunteer;
+import server.core.PreferenceStore;
+import server.core.ServiceRegistry;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreferenceJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private final PreferenceStore store = new PreferenceStore();
+
+    private PreferenceJournal open() throws IOException {
+        PreferenceJournal journal = new PreferenceJournal(dir, 1_000_000);
+        journal.start(store::snapshot);
+        return journal;
+    }
+
+    private List<Volunteer> recover() throws IOException {
+        ServiceRegistry registry = new ServiceRegistry();
+        List<Volunteer> recovered = new ArrayList<>();
+        new PreferenceJournal(dir, 1_000_000).recover(registry, record -> recovered.add(record.toVolunteer(registry)));
+        recovered.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+        return recovered;
+    }
+
+    private static Volunteer volunteer(int id, String name) {
+        return new Volunteer(id, name, List.of(new Preference("Media", 1)));
+    }
+
+    /**
+     * Stores and journals volunteers the way the API does.
+     */
+    private void write(PreferenceJournal journal, Volunteer... volunteers) {
+        PreferenceStore.Write write = store.write(List.of(volunteers));
+        journal.append(write.getVersion(), List.of(volunteers)).join();
+    }
+
+    private List<Path> files(String glob) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> dir.getFileSystem().getPathMatcher("glob:" + glob).matches(f.getFileName()))
+                    .sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static List<String> names(List<Volunteer> volunteers) {
+        List<String> names = new ArrayList<>();
+        volunteers.forEach(v -> names.add(v.getName()));
+        return names;
+    }
+
+    @Test
+    void replayKeepsLatestRecordPerVolunteer() throws IOException {
+        PreferenceJournal journal = open();
+        write(journal, volunteer(1, "Ada"), volunteer(2, "Grace"));
+        write(journal, volunteer(1, "Ada Lovelace"));
+        journal.close();
+
+        assertEquals(List.of("Ada Lovelace", "Grace"), names(recover()));
+    }
+
+    @Test
+    void replayStopsAtTornTail() throws IOException {
+        PreferenceJournal journal = open();
+        write(journal, volunteer(1, "Ada"));
+        write(journal, volunteer(2, "Grace"));
+        journal.close();
+
+        Path segment = files("wal-*.log").get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3); // Crash in the middle of the last record
+        }
+
+        assertEquals(List.of("Ada"), names(recover()));
+    }
+
+    @Test
+    void replayStopsAtCorruptRecord() throws IOException {
+        PreferenceJournal journal = open();
+        write(journal, volunteer(1, "Ada"));
+        write(journal, volunteer(2, "Grace"));
+        write(journal, volunteer(3, "Hedy"));
+        journal.close();
+
+        Path segment = files("wal-*.log").get(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 10] ^= 0x55; // Inside the last record's payload
+        Files.write(segment, bytes);
+
+        assertEquals(List.of("Ada", "Grace"), names(recover()));
+    }
+
+    @Test
+    void compactionWritesSnapshotAndDropsOldSegments() throws IOException {
+        PreferenceJournal journal = open();
+        write(journal, volunteer(1, "Ada"), volunteer(2, "Grace"));
+        journal.compact().join();
+        write(journal, volunteer(2, "Grace Hopper"), volunteer(3, "Hedy"));
+        journal.close();
+
+        assertEquals(1, files("snapshot.bin").size());
+        assertEquals(1, files("wal-*.log").size()); // Only the segment opened by the compaction
+        assertEquals(List.of("Ada", "Grace Hopper", "Hedy"), names(recover()));
+    }
+
+    @Test
+    void recoveryWorksAcrossRestartsAfterCompaction() throws IOException {
+        PreferenceJournal journal = open();
+        write(journal, volunteer(1, "Ada"));
+        journal.compact().join();
+        journal.close();
+
+        PreferenceJournal reopened = new PreferenceJournal(dir, 1_000_000);
+        PreferenceStore restored = new PreferenceStore();
+        List<CompactVolunteer> recovered = new ArrayList<>();
+        long version = reopened.recover(restored.getRegistry(), recovered::add);
+        restored.restore(recovered, version);
+        reopened.start(restored::snapshot);
+        PreferenceStore.Write write = restored.write(List.of(volunteer(2, "Grace")));
+        reopened.append(write.getVersion(), volunteer(2, "Grace")).join();
+        reopened.close();
+
+        assertEquals(List.of("Ada", "Grace"), names(recover()));
+    }
+
+    @Test
+    void failedRotationKeepsJournalWritable() throws IOException {
+        PreferenceJournal journal = open();
+        write(journal, volunteer(1, "Ada"));
+        Path blocker = Files.createDirectory(dir.resolve("wal-00000002.log")); // The next segment cannot be created
+
+        assertThrows(CompletionException.class, () -> journal.compact().join());
+        write(journal, volunteer(2, "Grace"));
+
+        Files.delete(blocker);
+        journal.compact().join(); // Rotation works again once the segment can be created
+        write(journal, volunteer(3, "Hedy"));
+        journal.close();
+
+        assertEquals(List.of("Ada", "Grace", "Hedy"), names(recover()));
+    }
+
+    @Test
+    void unencodableRecordFailsAlone() throws IOException {
+        PreferenceJournal journal = open();
+        CompletableFuture<Void> good = journal.append(1, volunteer(1, "Ada"));
+        CompletableFuture<Void> bad = journal.append(2, volunteer(2, "x".repeat(70_000)));
+        CompletableFuture<Void> after = journal.append(3, volunteer(3, "Grace"));
+
+        assertThrows(CompletionException.class, bad::join);
+        good.join();
+        after.join();
+        journal.close();
+
+        List<Volunteer> recovered = recover();
+        assertEquals(2, recovered.size());
+        assertEquals(1, recovered.get(0).getId());
+        assertEquals(3, recovered.get(1).getId());
+    }
+
+    @Test
+    void batchWithUnencodableRecordIsNotJournaled() throws IOException {
+        PreferenceJournal journal = open();
+        CompletableFuture<Void> batch = journal.append(1, List.of(volunteer(1, "Ada"), volunteer(2, "x".repeat(70_000))));
+
+        assertThrows(CompletionException.class, batch::join);
+        journal.close();
+        assertTrue(recover().isEmpty());
+    }
+
+    @Test
+    void appendAndCompactAfterCloseFail() throws IOException {
+        PreferenceJournal journal = open();
+        journal.append(1, volunteer(1, "Ada")).join();
+        journal.close();
+
+        assertThrows(CompletionException.class, () -> journal.append(2, volunteer(2, "Grace")).join());
+        assertThrows(CompletionException.class, () -> journal.compact().join());
+    }
+
+    @Test
+    void closeFailsRecordsOfAJournalNeverStarted() throws IOException {
+        PreferenceJournal journal = new PreferenceJournal(dir, 1_000_000);
+        CompletableFuture<Void> append = journal.append(1, volunteer(1, "Ada"));
+        journal.close();
+
+        assertTrue(append.isCompletedExceptionally());
+    }
+}
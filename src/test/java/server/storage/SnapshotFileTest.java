@@ -0,0 +1,85 @@
+package server.storage;
+
+import model.Preference;
+import model.Volunteer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import server.core.CompactVolunteer;
+import server.core.PreferenceStore;
+import server.core.ServiceRegistry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotFileTest {
+
+    @TempDir
+    Path dir;
+
+    private List<Volunteer> read(Path file, ServiceRegistry registry) throws IOException {
+        List<Volunteer> read = new ArrayList<>();
+        SnapshotFile.read(file, registry, record -> read.add(record.toVolunteer(registry)));
+        read.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+        return read;
+    }
+
+    @Test
+    void roundTripsLongServiceNamesAndExplicitPriorities() throws IOException {
+        String longName = "S".repeat(40_000); // Longer than a signed short length
+        PreferenceStore store = new PreferenceStore();
+        store.addOrUpdatePreferences(new Volunteer(1, "Ada", List.of(new Preference(longName, 1), new Preference("Media", 2))));
+        store.addOrUpdatePreferences(new Volunteer(2, null, List.of(new Preference("Media", 3))));
+
+        Path file = dir.resolve("snapshot.bin");
+        SnapshotFile.write(file, store.snapshot());
+        List<Volunteer> read = new ArrayList<>();
+        ServiceRegistry registry = new ServiceRegistry();
+        long version = SnapshotFile.read(file, registry, record -> read.add(record.toVolunteer(registry)));
+        read.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+
+        assertEquals(store.snapshot().getVersion(), version);
+        assertEquals(2, read.size());
+        assertEquals("Ada", read.get(0).getName());
+        assertEquals(longName, read.get(0).getPreferences().get(0).getServiceName());
+        assertEquals("Media", read.get(0).getPreferences().get(1).getServiceName());
+        assertNull(read.get(1).getName());
+        assertEquals(3, read.get(1).getPreferences().get(0).getPriority());
+    }
+
+    @Test
+    void readsIntoRegistryWithOtherServiceIds() throws IOException {
+        PreferenceStore store = new PreferenceStore();
+        store.addOrUpdatePreferences(new Volunteer(1, "Ada", List.of(new Preference("Media", 1), new Preference("Security", 2))));
+        Path file = dir.resolve("snapshot.bin");
+        SnapshotFile.write(file, store.snapshot());
+
+        ServiceRegistry registry = new ServiceRegistry();
+        registry.intern("Security"); // Takes the ID "Media" has in the file
+        List<CompactVolunteer> records = new ArrayList<>();
+        SnapshotFile.read(file, registry, records::add);
+
+        assertEquals(registry.id("Media"), records.get(0).serviceId(0));
+        assertEquals(registry.id("Security"), records.get(0).serviceId(1));
+        assertEquals(List.of("Media", "Security"), List.of(registry.name(records.get(0).serviceId(0)),
+                registry.name(records.get(0).serviceId(1))));
+        assertEquals(2, records.get(0).priority(1));
+    }
+
+    @Test
+    void rejectsCorruptFile() throws IOException {
+        PreferenceStore store = new PreferenceStore();
+        store.addOrUpdatePreferences(new Volunteer(1, "Ada", List.of(new Preference("Media", 1))));
+        Path file = dir.resolve("snapshot.bin");
+        SnapshotFile.write(file, store.snapshot());
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+
+        assertThrows(IOException.class, () -> read(file, new ServiceRegistry()));
+    }
+}